@@ -0,0 +1,87 @@
+package unitins.br;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * inserir/buscar com chaves em ordem crescente (como as cidades chegam do
+ * CSV) e em ordem aleatória. Chaves ordenadas degeneram a ArvoreBinaria em
+ * lista; a ArvoreAVL entra como referência.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArvoreBinariaBenchmark {
+
+    @Param({"ORDENADAS", "ALEATORIAS"})
+    public String ordem;
+
+    @Param({"ArvoreBinaria", "ArvoreAVL"})
+    public String implementacao;
+
+    // cidades distintas (um estado grande tem ~650) e registros por cidade
+    @Param({"1000"})
+    public int chaves;
+
+    private static final int REGISTROS_POR_CHAVE = 4;
+
+    private Integer[] sequencia;
+    private ArvoreBinariaADT<Integer> arvoreMontada;
+
+    @Setup
+    public void preparar() {
+        sequencia = new Integer[chaves * REGISTROS_POR_CHAVE];
+        for (int i = 0; i < sequencia.length; i++) {
+            sequencia[i] = 10000 + (i / REGISTROS_POR_CHAVE) * 7;
+        }
+        if (ordem.equals("ALEATORIAS")) {
+            Random random = new Random(DadosBenchmark.SEMENTE);
+            for (int i = sequencia.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Integer troca = sequencia[i];
+                sequencia[i] = sequencia[j];
+                sequencia[j] = troca;
+            }
+        }
+
+        arvoreMontada = montar();
+    }
+
+    @Benchmark
+    public ArvoreBinariaADT<Integer> inserir() {
+        return montar();
+    }
+
+    @Benchmark
+    public void buscar(Blackhole bh) {
+        for (Integer chave : sequencia) {
+            bh.consume(arvoreMontada.buscar(chave));
+        }
+    }
+
+    private ArvoreBinariaADT<Integer> montar() {
+        ArvoreBinariaADT<Integer> arvore = implementacao.equals("ArvoreAVL")
+                ? new ArvoreAVL<>()
+                : new ArvoreBinaria<>();
+        for (int i = 0; i < sequencia.length; i++) {
+            arvore.inserir(sequencia[i], i);
+        }
+        return arvore;
+    }
+}
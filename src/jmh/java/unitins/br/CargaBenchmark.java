@@ -0,0 +1,56 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Carga completa do CSV: leitura, armazém colunar e construção dos índices
+ * (árvore por cidade, índice composto, cubo e bitmaps).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class CargaBenchmark {
+
+    @Param({"MAPEADO", "MAPEADO_PARALELO", "BUFFERED_READER"})
+    public String leitor;
+
+    @Param({"1000000"})
+    public int linhas;
+
+    private String arquivo;
+
+    @Setup
+    public void preparar() throws IOException {
+        // sem isso cada chamada mede também a formatação e a escrita do log
+        Logger.setSilencioso(true);
+        arquivo = DadosBenchmark.csv(linhas);
+    }
+
+    @Benchmark
+    public AppService carregar() {
+        AppService servico = new AppService();
+        servico.setUsarSnapshot(false);
+        servico.setUsarLeitorMapeado(!leitor.equals("BUFFERED_READER"));
+        servico.setThreadsLeitura(leitor.equals("MAPEADO_PARALELO")
+                ? Runtime.getRuntime().availableProcessors()
+                : 1);
+        servico.lerArquivoCsv(arquivo);
+        return servico;
+    }
+}
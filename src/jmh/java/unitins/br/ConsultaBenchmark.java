@@ -0,0 +1,77 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * calcularEleitores em todas as combinações de abrangência e perfil,
+ * pelo cubo e pelo caminho de índices/varredura.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules", "jdk.incubator.vector"})
+public class ConsultaBenchmark {
+
+    @Param({"ESTADO", "CIDADE", "LOCAL", "SECAO"})
+    public String abrangencia;
+
+    // filtro:valor (valores como os do menu)
+    @Param({"TODOS", "GENERO:FEMININO", "OBRIGATORIEDADE:OBRIGATÓRIO", "FAIXA_ETARIA:4",
+            "ESCOLARIDADE:6", "ESTADO_CIVIL:2", "RACA_COR:3", "DEFICIENCIA", "BIOMETRIA"})
+    public String perfil;
+
+    @Param({"true", "false"})
+    public boolean usarCubo;
+
+    @Param({"1000000"})
+    public int linhas;
+
+    private AppService servico;
+    private String filtroPerfil;
+    private String valorPerfil;
+    private int codigoCidade;
+    private int numeroZona;
+    private int numeroSecao;
+    private int numeroLocal;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        // sem isso cada chamada mede também a formatação e a escrita do log
+        Logger.setSilencioso(true);
+        servico = DadosBenchmark.servicoCarregado(linhas);
+        servico.setUsarCubo(usarCubo);
+
+        int separador = perfil.indexOf(':');
+        filtroPerfil = separador < 0 ? perfil : perfil.substring(0, separador);
+        valorPerfil = separador < 0 ? "" : perfil.substring(separador + 1);
+
+        // alvo: uma seção/local que existe no dataset
+        PerfilEleitor referencia = servico.listarRegistros(1)[0];
+        codigoCidade = referencia.codCidade();
+        numeroZona = referencia.nrZona();
+        numeroSecao = referencia.nrSecao();
+        numeroLocal = referencia.nrLocalVotacao();
+    }
+
+    @Benchmark
+    public long calcularEleitores() {
+        return servico.calcularEleitores(abrangencia, codigoCidade, numeroZona,
+                numeroSecao, numeroLocal, filtroPerfil, valorPerfil);
+    }
+}
@@ -0,0 +1,59 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Dataset sintético compartilhado pelos benchmarks.
+ *
+ * O CSV é gerado uma vez por (linhas, semente) no diretório temporário e
+ * reaproveitado nas execuções seguintes; como o gerador é determinístico,
+ * todas as execuções medem exatamente os mesmos dados.
+ */
+final class DadosBenchmark {
+
+    static final long SEMENTE = 20261017L;
+
+    private DadosBenchmark() {
+    }
+
+    /**
+     * Caminho do CSV sintético com a quantidade de linhas pedida.
+     */
+    static String csv(int linhas) throws IOException {
+        Path arquivo = Paths.get(System.getProperty("java.io.tmpdir"),
+                "eleitorado-bench", "perfil_sintetico_v" + GeradorDadosTse.VERSAO + "_" + linhas + "_" + SEMENTE + ".csv");
+        if (!Files.exists(arquivo)) {
+            Path temporario = Paths.get(arquivo + ".tmp");
+            GeradorDadosTse.gerarCsv(temporario.toString(), linhas, SEMENTE);
+            Files.move(temporario, arquivo);
+        }
+        return arquivo.toString();
+    }
+
+    /**
+     * Linhas já separadas em campos, como as recebe PerfilEleitor.fromCsv.
+     */
+    static String[][] camposSeparados(int linhas) {
+        GeradorDadosTse gerador = new GeradorDadosTse(SEMENTE, "SP", linhas);
+        String[][] campos = new String[linhas][];
+        for (int i = 0; i < linhas; i++) {
+            campos[i] = gerador.proximaLinha().split(";");
+        }
+        return campos;
+    }
+
+    /**
+     * AppService com o CSV sintético carregado (sem download e sem snapshot).
+     */
+    static AppService servicoCarregado(int linhas) throws IOException {
+        AppService servico = new AppService();
+        servico.setUsarSnapshot(false);
+        if (!servico.lerArquivoCsv(csv(linhas))) {
+            throw new IllegalStateException("Falha ao carregar o CSV sintético");
+        }
+        return servico;
+    }
+}
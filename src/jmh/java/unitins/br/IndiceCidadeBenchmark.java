@@ -0,0 +1,105 @@
+package unitins.br;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Índice por cidade: IndiceInteiro (chaves int) contra as árvores genéricas
+ * do TAD (chaves Integer), montando o índice a partir dos registros
+ * carregados e buscando as cidades como chegam das consultas (int).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class IndiceCidadeBenchmark {
+
+    @Param({"IndiceInteiro", "ArvoreAVL", "ArvoreBinaria.construirBalanceada"})
+    public String implementacao;
+
+    // cidades distintas (MG tem 853) e registros no total
+    @Param({"850"})
+    public int cidades;
+
+    @Param({"200000"})
+    public int registros;
+
+    // buscas por chamada de buscar()
+    private static final int BUSCAS = 10000;
+
+    private int[] codCidade;
+    private int[] consultas;
+    private IndiceInteiro indiceMontado;
+    private ArvoreBinariaADT<Integer> arvoreMontada;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(DadosBenchmark.SEMENTE);
+
+        // coluna codCidade do armazém: o índice só olha a chave de cada linha
+        codCidade = new int[registros];
+        for (int i = 0; i < registros; i++) {
+            codCidade[i] = 10000 + random.nextInt(cidades) * 7;
+        }
+
+        consultas = new int[BUSCAS];
+        for (int i = 0; i < BUSCAS; i++) {
+            consultas[i] = 10000 + random.nextInt(cidades) * 7;
+        }
+
+        if (implementacao.equals("IndiceInteiro")) {
+            indiceMontado = IndiceInteiro.construir(codCidade, registros);
+        } else {
+            arvoreMontada = montarArvore();
+        }
+    }
+
+    @Benchmark
+    public Object montar() {
+        if (implementacao.equals("IndiceInteiro")) {
+            return IndiceInteiro.construir(codCidade, registros);
+        }
+        return montarArvore();
+    }
+
+    @Benchmark
+    public void buscar(Blackhole bh) {
+        if (indiceMontado != null) {
+            for (int codigo : consultas) {
+                bh.consume(indiceMontado.buscar(codigo));
+            }
+        } else {
+            // como em calcularEleitores: o int da consulta vira Integer na chamada
+            for (int codigo : consultas) {
+                bh.consume(arvoreMontada.buscar(codigo));
+            }
+        }
+    }
+
+    private ArvoreBinariaADT<Integer> montarArvore() {
+        if (implementacao.equals("ArvoreAVL")) {
+            ArvoreAVL<Integer> arvore = new ArvoreAVL<>();
+            for (int i = 0; i < registros; i++) {
+                arvore.inserir(codCidade[i], i);
+            }
+            arvore.compactar();
+            return arvore;
+        }
+        return ArvoreBinaria.construirBalanceada(codCidade, registros);
+    }
+}
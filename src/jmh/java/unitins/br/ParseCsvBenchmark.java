@@ -0,0 +1,80 @@
+package unitins.br;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversão de linhas do CSV em PerfilEleitor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseCsvBenchmark {
+
+    private static final int LINHAS = 10_000;
+
+    private String[] linhas;
+    private String[][] campos;
+    private int posicao;
+
+    @Setup
+    public void preparar() {
+        GeradorDadosTse gerador = new GeradorDadosTse(DadosBenchmark.SEMENTE, "SP", LINHAS);
+        linhas = new String[LINHAS];
+        for (int i = 0; i < LINHAS; i++) {
+            linhas[i] = gerador.proximaLinha();
+        }
+        campos = DadosBenchmark.camposSeparados(LINHAS);
+    }
+
+    // uma linha por chamada, percorrendo o lote em círculo
+
+    @Benchmark
+    public PerfilEleitor fromCsv() {
+        posicao = (posicao + 1) % LINHAS;
+        return PerfilEleitor.fromCsv(campos[posicao]);
+    }
+
+    @Benchmark
+    public void fromCsvNoArmazem(ArmazemPorExecucao destino) {
+        posicao = (posicao + 1) % LINHAS;
+        if (posicao == 0) {
+            destino.preparar(); // a cada volta no lote, uma carga nova
+        }
+        destino.armazem.adicionar(PerfilEleitor.fromCsv(campos[posicao]));
+    }
+
+    @Benchmark
+    public void splitMaisFromCsv(Blackhole bh) {
+        posicao = (posicao + 1) % LINHAS;
+        bh.consume(PerfilEleitor.fromCsv(linhas[posicao].split(";")));
+    }
+
+    /**
+     * Armazém de destino, como em lerCsvBufferedReader (textos codificados
+     * nos dicionários do próprio armazém).
+     */
+    @State(Scope.Thread)
+    public static class ArmazemPorExecucao {
+        ArmazemColunar armazem;
+
+        @Setup
+        public void preparar() {
+            armazem = new ArmazemColunar(LINHAS);
+        }
+    }
+}
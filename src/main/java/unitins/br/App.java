@@ -1,5 +1,6 @@
 package unitins.br;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 /**
@@ -36,6 +37,8 @@ public class App {
             System.out.println("2 - Consultar quantidade de eleitores");
             System.out.println("3 - Exibir estatísticas gerais");
             System.out.println("4 - Listar registros");
+            System.out.println("5 - Métricas de desempenho");
+            System.out.println("6 - Recarregar um estado (baixar de novo do TSE)");
             System.out.println("0 - Sair");
             System.out.print("\nEscolha uma opção: ");
 
@@ -43,7 +46,7 @@ public class App {
 
             switch (opcao) {
                 case "1":
-                    menuCarregarDados();
+                    menuCarregarDados(false);
                     break;
                 case "2":
                     menuConsultarEleitores();
@@ -54,6 +57,12 @@ public class App {
                 case "4":
                     menuListarRegistros();
                     break;
+                case "5":
+                    menuMetricas();
+                    break;
+                case "6":
+                    menuCarregarDados(true);
+                    break;
                 case "0":
                     continuar = false;
                     System.out.println("\nEncerrando aplicação...");
@@ -68,8 +77,10 @@ public class App {
 
     /**
      * Menu para carregar dados de um estado.
+     *
+     * @param recarregar true = ignora memória, snapshot e arquivos em dados/ e baixa do TSE
      */
-    private static void menuCarregarDados() {
+    private static void menuCarregarDados(boolean recarregar) {
         System.out.println("\nEstados disponíveis:");
         System.out.println("AC, AL, AM, AP, BA, CE, DF, ES, GO, MA, MG, MS, MT,");
         System.out.println("PA, PB, PE, PI, PR, RJ, RN, RO, RR, RS, SC, SE, SP, TO");
@@ -83,7 +94,11 @@ public class App {
             return;
         }
 
-        service.carregarDados(estado);
+        if (recarregar) {
+            service.recarregarDados(estado);
+        } else {
+            service.carregarDados(estado);
+        }
     }
 
     /**
@@ -344,6 +359,26 @@ public class App {
         System.out.println("Estado: " + service.getEstadoCarregado());
     }
 
+    /**
+     * Menu para exibir (e exportar) as métricas de desempenho.
+     */
+    private static void menuMetricas() {
+        System.out.println("\n======= MÉTRICAS DE DESEMPENHO =======");
+        System.out.print(Metricas.resumoTexto());
+
+        System.out.print("\nExportar para dados/metricas.txt e dados/metricas.json? (s/n): ");
+        if (!scanner.nextLine().trim().equalsIgnoreCase("s")) {
+            return;
+        }
+
+        try {
+            String[] arquivos = Metricas.exportar();
+            System.out.println("Métricas exportadas: " + String.join(", ", arquivos));
+        } catch (IOException e) {
+            System.out.println("Erro ao exportar métricas: " + e.getMessage());
+        }
+    }
+
     /**
      * Menu para listar registros.
      */
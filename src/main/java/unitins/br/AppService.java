@@ -1,12 +1,19 @@
 package unitins.br;
 
 import java.io.*;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 
 /**
@@ -20,16 +27,98 @@ import java.util.Map;
  */
 public class AppService {
 
-    // Array simples para armazenar os dados (implementação base)
-    private PerfilEleitor[] eleitores;
+    // Armazenamento colunar dos dados (int[] + colunas de texto por dicionário)
+    private ArmazemColunar armazem;
+
+    // Cópia fora do heap dos registros (null = colunas no heap). Quando existe,
+    // o armazém acima fica só com os dicionários
+    private ArmazemForaDoHeap armazemForaDoHeap;
     private int totalRegistros = 0;
 
-    // Tamanho inicial e fator de crescimento do array
+    // Capacidade inicial das colunas
     private static final int TAMANHO_INICIAL = 100000;
-    private static final double FATOR_CRESCIMENTO = 1.5;
 
-    // Usando a classe concreta ArvoreBinaria 
-    private ArvoreBinaria<Integer> arvorePorCidade;
+    // Índice por cidade (tipado pelo TAD para permitir trocar a implementação)
+    private ArvoreBinariaADT<Integer> arvorePorCidade;
+
+    // Índice por cidade com chaves int (sem Integer); quando existe, arvorePorCidade fica null
+    private IndiceInteiro indicePorCidade;
+
+    // Faixas [início, fim) por cidade/zona/seção quando o armazém está agrupado;
+    // nesse caso os índices acima (árvore, IndiceInteiro, composto) ficam null
+    private IndiceFaixas indiceFaixas;
+
+    // Código, nome, registros e eleitores de cada cidade (montado junto com os índices)
+    private CatalogoCidades catalogoCidades;
+
+    // Índice composto cidade -> zona -> seção/local (consultas LOCAL e SECAO)
+    private IndiceHierarquico indiceHierarquico;
+
+    // Cubo com as somas pré-calculadas por estado/cidade/seção/local e perfil
+    private CuboAgregado cubo;
+
+    // true = responde calcularEleitores pelo cubo; false = busca nos índices/varredura
+    private boolean usarCubo = true;
+
+    // Bitmaps por valor de perfil/cidade/zona (consultas com vários filtros)
+    private IndiceBitmap indiceBitmap;
+
+    // true = monta o índice de bitmaps na carga; false = consultas combinadas por varredura
+    private boolean usarIndiceBitmap = true;
+
+    // true = ArvoreAVL (balanceada), false = ArvoreBinaria (BST simples)
+    private boolean usarArvoreBalanceada = true;
+
+    // true = lê o CSV mapeado em memória (LeitorCsvMapeado), false = BufferedReader + split
+    private boolean usarLeitorMapeado = true;
+
+    // true = lê o CSV direto do ZIP enquanto ele é baixado (sem extrair para o disco)
+    private boolean usarCargaStreaming = false;
+
+    // true = grava/lê o snapshot binário do estado em dados/ (recarga rápida).
+    // Desligado por padrão: o snapshot não sabe quando o TSE publica um arquivo
+    // novo (para isso existe recarregarDados). Pela linha de comando: -Dsnapshot=true
+    private boolean usarSnapshot = Boolean.getBoolean("snapshot");
+
+    // snapshots em dados/ que correspondem ao que foi carregado nesta execução;
+    // um .snap de uma execução anterior pode ser de outra publicação do TSE
+    private final Set<String> snapshotsDaSessao = new HashSet<>();
+
+    // true = usa o CSV/ZIP já presente em dados/ (ex: gerado pelo GeradorDadosTse) sem baixar.
+    // Pela linha de comando: java -DarquivosLocais=true ...
+    private boolean usarArquivosLocais = Boolean.getBoolean("arquivosLocais");
+
+    // true = depois da carga os registros vão para fora do heap (ArmazemForaDoHeap).
+    // Pela linha de comando: java -DarmazemForaDoHeap=true ...
+    private boolean usarArmazemForaDoHeap = Boolean.getBoolean("armazemForaDoHeap");
+
+    // threads usadas pelo leitor mapeado (1 = leitura sequencial)
+    private int threadsLeitura = Runtime.getRuntime().availableProcessors();
+
+    // true = monta o índice de uma vez a partir do array (ArvoreBinaria.construirBalanceada)
+    private boolean usarCargaEmLote = true;
+
+    // true = índice por cidade primitivo (IndiceInteiro); false = árvore do TAD (AVL ou BST)
+    private boolean usarIndicePrimitivo = true;
+
+    // true = ordena as linhas por cidade/zona/seção na carga e indexa por faixas.
+    // Pela linha de comando: java -DarmazemAgrupado=true ...
+    private boolean usarArmazemAgrupado = Boolean.getBoolean("armazemAgrupado");
+
+    // Varredura das consultas de ESTADO e das estatísticas (paralela, vetorial se disponível)
+    private MotorVarredura motorVarredura = new MotorVarredura(Runtime.getRuntime().availableProcessors());
+
+    // Conferência das consultas indexadas e do cubo por varredura linear, em segundo
+    // plano (null = desligada, o padrão). Pela linha de comando: java -Dverificacao.taxa=0.01 ...
+    private VerificadorConsultas verificador = VerificadorConsultas.daTaxa(System.getProperty("verificacao.taxa"));
+
+    // Estados já carregados (registros + índices), descartados por LRU acima do orçamento.
+    // Pela linha de comando: java -DorcamentoMemoriaMb=2048 ... (padrão: 40% do heap máximo)
+    private final CatalogoEstados catalogo = new CatalogoEstados(Long.getLong("orcamentoMemoriaMb",
+            Runtime.getRuntime().maxMemory() * 2 / 5 / 1048576) * 1048576);
+
+    // Estado em uso (o mesmo que está nos campos acima), para voltar a ele se uma carga falhar
+    private CatalogoEstados.Estado estadoAtivo;
 
     // Estados brasileiros válidos
     private static final String[] ESTADOS = {
@@ -61,7 +150,7 @@ public class AppService {
      * Verifica se há dados carregados.
      */
     public boolean temDados() {
-        return eleitores != null && totalRegistros > 0;
+        return armazem != null && totalRegistros > 0;
     }
 
     /**
@@ -69,11 +158,179 @@ public class AppService {
      */
     public String getEstadoCarregado() {
         if (temDados()) {
-            return eleitores[0].estado();
+            return armazemForaDoHeap != null
+                    ? armazemForaDoHeap.texto(ArmazemForaDoHeap.ESTADO, 0)
+                    : armazem.estado.valor(0);
         }
         return "";
     }
 
+    /**
+     * Define se o índice por cidade deve usar a árvore AVL (balanceada)
+     * ou a árvore binária de busca simples. Vale para o próximo carregamento.
+     */
+    public void setUsarArvoreBalanceada(boolean usarArvoreBalanceada) {
+        this.usarArvoreBalanceada = usarArvoreBalanceada;
+    }
+
+    /**
+     * Define se o índice por cidade é montado em lote (árvore perfeitamente
+     * balanceada, sem uma descida por registro) ou com inserir() registro a registro.
+     */
+    public void setUsarCargaEmLote(boolean usarCargaEmLote) {
+        this.usarCargaEmLote = usarCargaEmLote;
+    }
+
+    /**
+     * Define se o índice por cidade usa chaves int (IndiceInteiro: vetor
+     * ordenado + busca binária, sem Integer) ou a árvore do TAD escolhida
+     * em setUsarArvoreBalanceada. Vale para o próximo carregamento.
+     */
+    public void setUsarIndicePrimitivo(boolean usarIndicePrimitivo) {
+        this.usarIndicePrimitivo = usarIndicePrimitivo;
+    }
+
+    /**
+     * Define se, depois da carga, as linhas são reordenadas por cidade, zona
+     * e seção (ArmazemColunar.agrupar). Com isso cada cidade/zona/seção é um
+     * trecho contíguo das colunas e o índice guarda só as faixas
+     * (IndiceFaixas), sem arrays de linhas. A ordem de listarRegistros passa
+     * a ser a do agrupamento. Vale para o próximo carregamento.
+     */
+    public void setUsarArmazemAgrupado(boolean usarArmazemAgrupado) {
+        this.usarArmazemAgrupado = usarArmazemAgrupado;
+    }
+
+    /**
+     * Define se o CSV é lido pelo leitor mapeado em memória ou pelo
+     * BufferedReader original.
+     */
+    public void setUsarLeitorMapeado(boolean usarLeitorMapeado) {
+        this.usarLeitorMapeado = usarLeitorMapeado;
+    }
+
+    /**
+     * Define quantas threads o leitor mapeado usa. Com 1 thread a leitura é
+     * sequencial; com mais, o arquivo é dividido em trechos lidos em paralelo.
+     */
+    public void setThreadsLeitura(int threadsLeitura) {
+        this.threadsLeitura = Math.max(1, threadsLeitura);
+    }
+
+    /**
+     * Define se a carga lê o CSV direto do ZIP, durante o download, em vez
+     * de baixar, extrair para dados/ e ler o arquivo extraído.
+     */
+    public void setUsarCargaStreaming(boolean usarCargaStreaming) {
+        this.usarCargaStreaming = usarCargaStreaming;
+    }
+
+    /**
+     * Define se o snapshot binário em dados/ é usado (leitura) e atualizado
+     * (gravação após cada carga a partir do CSV).
+     */
+    public void setUsarSnapshot(boolean usarSnapshot) {
+        this.usarSnapshot = usarSnapshot;
+    }
+
+    /**
+     * Define se carregarDados usa o CSV (ou o ZIP) que já estiver em dados/
+     * em vez de baixar do TSE. Serve para trabalhar offline e com os dados
+     * sintéticos do GeradorDadosTse. Se não houver arquivo local, baixa.
+     */
+    public void setUsarArquivosLocais(boolean usarArquivosLocais) {
+        this.usarArquivosLocais = usarArquivosLocais;
+    }
+
+    /**
+     * Define se, depois de cada carga, os registros são copiados para fora
+     * do heap (ArmazemForaDoHeap) e as colunas do heap são liberadas. As
+     * varreduras passam a ler os segmentos de memória. Para o heap não
+     * crescer com o tamanho do estado, as linhas são sempre agrupadas (como
+     * em setUsarArmazemAgrupado: só o índice de faixas, sem arrays de linhas
+     * por cidade/zona/seção/local) e o índice de bitmaps não é montado (a
+     * consulta combinada varre os segmentos). Vale para a próxima carga.
+     */
+    public void setUsarArmazemForaDoHeap(boolean usarArmazemForaDoHeap) {
+        this.usarArmazemForaDoHeap = usarArmazemForaDoHeap;
+    }
+
+    /**
+     * Define se calcularEleitores responde pelo cubo de agregação. Com false
+     * as consultas voltam a percorrer os registros (útil para conferir resultados)
+     * e as próximas cargas nem montam o cubo; ligar de novo só vale para os
+     * estados carregados depois disso.
+     */
+    public void setUsarCubo(boolean usarCubo) {
+        this.usarCubo = usarCubo;
+    }
+
+    /**
+     * Define quantas threads varrem as colunas nas consultas de ESTADO e nas
+     * estatísticas (1 = varredura sequencial).
+     */
+    public void setThreadsConsulta(int threadsConsulta) {
+        motorVarredura.encerrar();
+        motorVarredura = new MotorVarredura(threadsConsulta);
+    }
+
+    /**
+     * Liga a conferência das consultas indexadas (CIDADE, LOCAL e SECAO) e
+     * das respondidas pelo cubo (qualquer abrangência): uma fração delas é
+     * refeita por varredura linear numa thread de fundo
+     * e as divergências aparecem nas métricas (verificacao.*) e no log.
+     * A consulta do usuário não espera pela conferência.
+     *
+     * @param taxaAmostragem Fração das consultas conferidas: 0 desliga
+     *                       (padrão), 1 confere todas
+     */
+    public void setVerificacaoLinear(double taxaAmostragem) {
+        if (verificador != null) {
+            verificador.encerrar();
+            verificador = null;
+        }
+        if (taxaAmostragem > 0) {
+            verificador = new VerificadorConsultas(taxaAmostragem);
+        }
+    }
+
+    /**
+     * Define quanto de memória (estimada) os estados mantidos no catálogo
+     * podem ocupar juntos. Acima disso os estados usados há mais tempo são
+     * descartados e, se voltarem a ser pedidos, recarregados do snapshot.
+     */
+    public void setOrcamentoMemoria(long bytes) {
+        for (CatalogoEstados.Estado descartado : catalogo.setOrcamentoBytes(bytes)) {
+            descartarDoCatalogo(descartado);
+        }
+    }
+
+    /**
+     * Retorna as siglas dos estados em memória, do usado há mais tempo ao mais recente.
+     */
+    public String[] getEstadosEmMemoria() {
+        return catalogo.estados();
+    }
+
+    /**
+     * Define se o índice de bitmaps é montado na carga. Sem ele,
+     * calcularEleitoresCombinados percorre todos os registros.
+     * Vale para a próxima carga.
+     */
+    public void setUsarIndiceBitmap(boolean usarIndiceBitmap) {
+        this.usarIndiceBitmap = usarIndiceBitmap;
+    }
+
+    /**
+     * Cria uma árvore vazia conforme a implementação escolhida.
+     */
+    private ArvoreBinariaADT<Integer> novaArvore() {
+        if (usarArvoreBalanceada) {
+            return new ArvoreAVL<>();
+        }
+        return new ArvoreBinaria<>();
+    }
+
     /**
      * Retorna o total de registros carregados.
      */
@@ -90,91 +347,298 @@ public class AppService {
     public boolean carregarDados(String estado) {
         estado = estado.toUpperCase();
 
+        // estado ainda em memória: só troca o estado ativo
+        long inicio = Metricas.iniciar();
+        CatalogoEstados.Estado emMemoria = catalogo.obter(estado);
+        if (emMemoria != null) {
+            ativar(emMemoria);
+            long tempo = Metricas.emMs(Metricas.registrar(Metricas.CARGA_CATALOGO, inicio));
+            Metricas.contar(Metricas.ACERTOS_CATALOGO, 1);
+            Logger.registrar(tempo, "Estado %s já estava em memória (%,d registros)",
+                    estado, totalRegistros);
+            return true;
+        }
+
+        return carregarEGuardar(estado, false);
+    }
+
+    /**
+     * Baixa de novo o arquivo do TSE e recarrega o estado, ignorando o que
+     * estiver em memória, o snapshot e os arquivos já presentes em dados/.
+     * É o jeito de pegar uma publicação nova do TSE.
+     *
+     * @param estado Sigla do estado (ex: "AC", "SP")
+     * @return true se carregou com sucesso
+     */
+    public boolean recarregarDados(String estado) {
+        return carregarEGuardar(estado.toUpperCase(), true);
+    }
+
+    private boolean carregarEGuardar(String estado, boolean forcarDownload) {
+        CatalogoEstados.Estado anterior = catalogo.obter(estado);
+
+        armazemForaDoHeap = null;
+        boolean carregou = carregarDadosDoEstado(estado, forcarDownload);
+
+        if (carregou && temDados()) {
+            if (usarArmazemForaDoHeap) {
+                moverParaForaDoHeap(estado);
+            }
+            guardarNoCatalogo(estado);
+            if (anterior != null && anterior.armazemForaDoHeap != null) {
+                // a versão antiga do estado foi substituída no catálogo
+                anterior.armazemForaDoHeap.close();
+            }
+        } else if (!carregou && estadoAtivo != null) {
+            // a carga pode ter deixado os campos pela metade; volta ao estado anterior
+            ativar(estadoAtivo);
+        }
+        return carregou;
+    }
+
+    /**
+     * Carrega o estado do snapshot, dos arquivos locais ou do TSE.
+     *
+     * @param forcarDownload true = baixa do TSE sem olhar o snapshot nem os arquivos locais
+     */
+    private boolean carregarDadosDoEstado(String estado, boolean forcarDownload) {
         Logger.info("Iniciando carregamento de dados do estado: " + estado);
 
         // 1. Download do arquivo
         String url = "https://cdn.tse.jus.br/estatistica/sead/odsele/perfil_eleitor_secao/perfil_eleitor_secao_ATUAL_" + estado + ".zip";
         String arquivoZip = "dados/perfil_eleitor_secao_" + estado + ".zip";
         String arquivoCsv = "dados/perfil_eleitor_secao_ATUAL_" + estado + ".csv";
+        String arquivoSnapshot = arquivoSnapshot(estado);
+
+        // 0. Snapshot binário de uma carga anterior (sempre tentado se foi
+        // gravado nesta execução, ex: no descarte do estado pelo catálogo)
+        if (!forcarDownload && (usarSnapshot || snapshotsDaSessao.contains(arquivoSnapshot))
+                && carregarSnapshot(arquivoSnapshot, arquivoCsv, arquivoZip)) {
+            return true;
+        }
+
+        boolean carregou;
+        if (!forcarDownload && usarArquivosLocais
+                && (Arquivo.existe(arquivoCsv) || Arquivo.existe(arquivoZip))) {
+            Logger.info("Usando arquivo local (sem download)");
+            if (!Arquivo.existe(arquivoCsv) && !Arquivo.extrairZip(arquivoZip, "dados")) {
+                return false;
+            }
+            carregou = lerArquivoCsv(arquivoCsv);
+        } else if (usarCargaStreaming) {
+            carregou = carregarDadosStreaming(url, arquivoZip);
+        } else {
+            if (!Arquivo.baixarArquivo(url, arquivoZip)) {
+                return false;
+            }
+
+            // 2. Extrair arquivo ZIP
+            if (!Arquivo.extrairZip(arquivoZip, "dados")) {
+                return false;
+            }
+
+            // 3. Ler arquivo CSV
+            carregou = lerArquivoCsv(arquivoCsv);
+        }
+
+        if (carregou && forcarDownload) {
+            // só depois do download dar certo: o snapshot e, na carga por
+            // streaming, o CSV extraído antes ainda são da publicação antiga
+            snapshotsDaSessao.remove(arquivoSnapshot);
+            Arquivo.excluir(arquivoSnapshot);
+            if (usarCargaStreaming) {
+                Arquivo.excluir(arquivoCsv);
+            }
+        }
+
+        if (carregou && usarSnapshot && temDados()) {
+            salvarSnapshot(arquivoSnapshot);
+        }
+        return carregou;
+    }
+
+    private static String arquivoSnapshot(String estado) {
+        return "dados/perfil_eleitor_secao_" + estado + ".snap";
+    }
+
+    /**
+     * Copia os registros do estado recém-carregado para fora do heap e solta
+     * as colunas. Antes garante o snapshot em dados/: sem as colunas no heap
+     * é dele que o estado é recarregado depois de sair do catálogo.
+     */
+    private void moverParaForaDoHeap(String estado) {
+        if (!snapshotsDaSessao.contains(arquivoSnapshot(estado))) {
+            salvarSnapshot(arquivoSnapshot(estado));
+        }
+
+        long inicio = Metricas.iniciar();
+        armazemForaDoHeap = new ArmazemForaDoHeap(armazem);
+        armazem.liberarColunas();
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.CARGA_FORA_DO_HEAP, inicio));
+        Logger.registrar(tempo, "Registros copiados para fora do heap (%.1f MB)",
+                armazemForaDoHeap.bytesForaDoHeap() / 1048576.0);
+    }
+
+    /**
+     * Torna o estado do catálogo o estado em uso.
+     */
+    private void ativar(CatalogoEstados.Estado estado) {
+        armazem = estado.armazem;
+        totalRegistros = armazem.tamanho();
+        arvorePorCidade = estado.arvorePorCidade;
+        indicePorCidade = estado.indicePorCidade;
+        indiceFaixas = estado.indiceFaixas;
+        catalogoCidades = estado.catalogoCidades;
+        indiceHierarquico = estado.indiceHierarquico;
+        cubo = estado.cubo;
+        indiceBitmap = estado.indiceBitmap;
+        armazemForaDoHeap = estado.armazemForaDoHeap;
+        estadoAtivo = estado;
+    }
+
+    /**
+     * Coloca o estado recém-carregado no catálogo e descarta os que passarem do orçamento.
+     */
+    private void guardarNoCatalogo(String estado) {
+        estadoAtivo = new CatalogoEstados.Estado(estado, armazem, armazemForaDoHeap,
+                arvorePorCidade, indicePorCidade, indiceFaixas, catalogoCidades, indiceHierarquico,
+                cubo, indiceBitmap);
+        for (CatalogoEstados.Estado descartado : catalogo.adicionar(estadoAtivo)) {
+            descartarDoCatalogo(descartado);
+        }
+        Logger.info("Estados em memória: %s (%.1f de %.1f MB estimados)",
+                String.join(", ", catalogo.estados()), catalogo.bytesEmUso() / 1048576.0,
+                catalogo.getOrcamentoBytes() / 1048576.0);
+    }
 
-        if (!Arquivo.baixarArquivo(url, arquivoZip)) {
+    /**
+     * Estado saiu do catálogo: garante o snapshot em dados/ para a recarga
+     * rápida (mesmo com usarSnapshot desligado) e deixa o resto para o GC.
+     */
+    private void descartarDoCatalogo(CatalogoEstados.Estado descartado) {
+        Metricas.contar(Metricas.DESCARTES_CATALOGO, 1);
+        String arquivo = arquivoSnapshot(descartado.uf());
+        // fora do heap o snapshot já foi gravado em moverParaForaDoHeap
+        if (descartado.armazem.temColunas() && !snapshotsDaSessao.contains(arquivo)) {
+            try {
+                SnapshotBinario.salvar(arquivo, descartado.armazem);
+                snapshotsDaSessao.add(arquivo);
+            } catch (IOException e) {
+                Logger.erro("Não foi possível gravar o snapshot de " + descartado.uf() + ": " + e.getMessage());
+            }
+        }
+        if (descartado.armazemForaDoHeap != null) {
+            descartado.armazemForaDoHeap.close();
+        }
+        Logger.info("Estado %s descartado da memória (LRU, ~%.1f MB)",
+                descartado.uf(), descartado.bytesEstimados() / 1048576.0);
+    }
+
+    /**
+     * Carrega o estado a partir do snapshot binário, se ele existir e for válido.
+     * A DT_GERACAO do snapshot precisa ser a mesma da origem em dados/ (o CSV
+     * extraído ou, sem ele, a primeira linha do CSV dentro do ZIP); se for
+     * diferente o snapshot está desatualizado. Sem origem para conferir, só
+     * vale o snapshot gravado nesta execução.
+     *
+     * @return true se carregou do snapshot
+     */
+    private boolean carregarSnapshot(String arquivoSnapshot, String arquivoCsv, String arquivoZip) {
+        String dtSnapshot = SnapshotBinario.lerDtGeracao(arquivoSnapshot);
+        if (dtSnapshot == null) {
+            return false;
+        }
+
+        String dtOrigem = Arquivo.existe(arquivoCsv) ? SnapshotBinario.lerDtGeracaoCsv(arquivoCsv) : null;
+        if (dtOrigem == null && Arquivo.existe(arquivoZip)) {
+            dtOrigem = SnapshotBinario.lerDtGeracaoZip(arquivoZip);
+        }
+        if (dtOrigem == null && !snapshotsDaSessao.contains(arquivoSnapshot)) {
+            Logger.info("Snapshot ignorado: sem CSV ou ZIP em dados/ para conferir a DT_GERACAO");
+            return false;
+        }
+        if (dtOrigem != null && !dtOrigem.equals(dtSnapshot)) {
+            Logger.info("Snapshot desatualizado (DT_GERACAO " + dtSnapshot + " -> " + dtOrigem + "), recarregando");
             return false;
         }
 
-        // 2. Extrair arquivo ZIP
-        if (!Arquivo.extrairZip(arquivoZip, "dados")) {
+        long inicio = Metricas.iniciar();
+
+        try {
+            SnapshotBinario.Conteudo conteudo = SnapshotBinario.carregar(arquivoSnapshot);
+            if (conteudo == null) {
+                return false;
+            }
+
+            armazem = conteudo.armazem;
+            totalRegistros = armazem.tamanho();
+
+            long tempo = Metricas.emMs(Metricas.registrar(Metricas.CARGA_SNAPSHOT, inicio));
+            Metricas.contar(Metricas.BYTES_LIDOS, Arquivo.tamanho(arquivoSnapshot));
+            Logger.registrar(tempo, "Leitura do snapshot concluída (%,d registros)", totalRegistros);
+            snapshotsDaSessao.add(arquivoSnapshot);
+
+            if (agruparLinhas()) {
+                // as linhas por cidade do snapshot não servem depois de reordenar
+                construirIndices();
+            } else {
+                construirIndicesDeGrupos(conteudo.cidades, conteudo.linhasPorCidade);
+            }
+            return true;
+
+        } catch (IOException e) {
+            Logger.erro("Erro ao ler snapshot: " + e.getMessage());
             return false;
         }
+    }
+
+    /**
+     * Grava o snapshot binário do estado carregado em dados/.
+     */
+    private void salvarSnapshot(String arquivoSnapshot) {
+        long inicio = Metricas.iniciar();
 
-        // 3. Ler arquivo CSV
-        return lerArquivoCsv(arquivoCsv);
+        try {
+            SnapshotBinario.salvar(arquivoSnapshot, armazem);
+            snapshotsDaSessao.add(arquivoSnapshot);
+            long tempo = Metricas.emMs(Metricas.registrar(Metricas.SNAPSHOT_GRAVACAO, inicio));
+            Logger.registrar(tempo, "Snapshot gravado (%.1f MB)",
+                    Arquivo.tamanho(arquivoSnapshot) / 1048576.0);
+        } catch (IOException e) {
+            Logger.erro("Não foi possível gravar o snapshot: " + e.getMessage());
+        }
     }
 
     /**
      * Lê o arquivo CSV e carrega os dados em memória.
+     * Visível no pacote para os benchmarks (src/jmh) carregarem um CSV local.
      */
-    private boolean lerArquivoCsv(String arquivo) {
+    boolean lerArquivoCsv(String arquivo) {
         System.out.println("\nLendo arquivo CSV...");
         System.out.println("(Arquivos grandes podem levar vários minutos)");
 
-        long inicio = System.currentTimeMillis();
+        long inicio = Metricas.iniciar();
 
         try {
-            eleitores = new PerfilEleitor[TAMANHO_INICIAL];
+            armazem = new ArmazemColunar(TAMANHO_INICIAL);
             totalRegistros = 0;
 
-            try (BufferedReader br = new BufferedReader(
-                    new InputStreamReader(
-                            new FileInputStream(arquivo), "ISO-8859-1"), 131072)) {
-
-                br.readLine(); // Pular cabeçalho
-                String linha;
-
-                while ((linha = br.readLine()) != null) {
-                    try {
-                        String[] campos = linha.split(";");
-                        if (campos.length >= 31) {
-                            if (totalRegistros >= eleitores.length) {
-                                expandirArray();
-                            }
-
-                            eleitores[totalRegistros] = PerfilEleitor.fromCsv(campos);
-                            totalRegistros++;
-                        }
-                    } catch (Exception e) {
-                        // Ignorar linhas com erro (didático)
-                    }
-
-                    if (totalRegistros % 1000000 == 0 && totalRegistros > 0) {
-                        System.out.printf("  Processados: %,d registros...%n", totalRegistros);
-                    }
-                }
-            }
-
-            // Compactar array
-            if (totalRegistros < eleitores.length) {
-                PerfilEleitor[] arrayCompacto = new PerfilEleitor[totalRegistros];
-                System.arraycopy(eleitores, 0, arrayCompacto, 0, totalRegistros);
-                eleitores = arrayCompacto;
+            if (usarLeitorMapeado) {
+                lerCsvMapeado(arquivo);
+            } else {
+                lerCsvBufferedReader(arquivo);
             }
 
-            long tempo = System.currentTimeMillis() - inicio;
-            Logger.registrar(String.format("Leitura do CSV concluída (%,d registros)", totalRegistros), tempo);
+            // Compactar colunas
+            armazem.compactar();
 
-            // Populando a árvore binária por cidade 
-            if (totalRegistros > 0) {
-                long inicioArvore = System.currentTimeMillis();
-                arvorePorCidade = new ArvoreBinaria<>();
-                for (int i = 0; i < totalRegistros; i++) {
-                    Integer chave = eleitores[i].codCidade();
-                    arvorePorCidade.inserir(chave, eleitores[i]);
-                }
-                long tempoArvore = System.currentTimeMillis() - inicioArvore;
-                Logger.registrar("Construção da árvore binária (por cidade)", tempoArvore);
-            } else {
-                arvorePorCidade = new ArvoreBinaria<>();
-            }
+            long tempo = Metricas.emMs(Metricas.registrar(Metricas.CARGA_CSV, inicio));
+            Metricas.contar(Metricas.LINHAS_LIDAS, totalRegistros);
+            Metricas.contar(Metricas.BYTES_LIDOS, Arquivo.tamanho(arquivo));
+            Logger.registrar(tempo, "Leitura do CSV concluída (%,d registros)", totalRegistros);
+            registrarDicionarios();
 
+            construirIndices();
             return true;
 
         } catch (IOException e) {
@@ -184,74 +648,310 @@ public class AppService {
     }
 
     /**
-     * Expande o array de eleitores.
+     * Baixa o ZIP e lê a entrada CSV à medida que os bytes chegam: não há
+     * extração para o disco nem segunda leitura do CSV. O ZIP continua
+     * sendo salvo em dados/ durante o download.
      */
-    private void expandirArray() {
-        int novoTamanho = (int) (eleitores.length * FATOR_CRESCIMENTO);
-        System.out.printf("  Expandindo array: %,d -> %,d%n", eleitores.length, novoTamanho);
+    private boolean carregarDadosStreaming(String url, String arquivoZip) {
+        System.out.println("(Lendo o CSV direto do ZIP durante o download)");
 
-        PerfilEleitor[] novoArray = new PerfilEleitor[novoTamanho];
-        System.arraycopy(eleitores, 0, novoArray, 0, totalRegistros);
-        eleitores = novoArray;
+        long inicio = Metricas.iniciar();
+
+        try (InputStream download = Arquivo.abrirDownload(url, arquivoZip);
+             InputStream csv = Arquivo.abrirCsvDoZip(download)) {
+
+            armazem = new ArmazemColunar(TAMANHO_INICIAL);
+            totalRegistros = 0;
+
+            LeitorCsvMapeado leitor = new LeitorCsvMapeado(armazem);
+            long bytes = leitor.carregarStream(csv);
+            armazem.compactar();
+            totalRegistros = armazem.tamanho();
+
+            long tempo = Metricas.emMs(Metricas.registrar(Metricas.CARGA_STREAMING, inicio));
+            Metricas.contar(Metricas.LINHAS_LIDAS, totalRegistros);
+            Metricas.contar(Metricas.BYTES_LIDOS, bytes);
+            Logger.registrar(tempo, "Download + leitura do CSV via ZIP concluídos (%,d registros, %,.1f MB descompactados)",
+                    totalRegistros, bytes / 1048576.0);
+            registrarDicionarios();
+
+        } catch (IOException e) {
+            Logger.erro("Erro na carga via ZIP: " + e.getMessage());
+            armazem = null;
+            totalRegistros = 0;
+            return false;
+        }
+
+        construirIndices();
+        return true;
     }
 
     /**
-     * Retorna as cidades disponíveis no estado carregado.
-     *
-     * Nota: Mantive a implementação original (didática). Futuramente podemos
-     * usar arvorePorCidade.emOrdem() para otimizar.
-     *
-     * @return Array bidimensional com [código, nome] de cada cidade
+     * Registra, para cada coluna de texto do armazém, a quantidade de valores
+     * distintos e a memória economizada pelo dicionário (vale para qualquer leitor).
      */
-    public String[][] getCidadesDisponiveis() {
-        if (!temDados()) return new String[0][0];
+    private void registrarDicionarios() {
+        long totalEconomizado = 0;
+
+        for (ArmazemColunar.ColunaTexto coluna : armazem.colunasTexto()) {
+            long economizado = armazem.bytesEconomizados(coluna);
+            totalEconomizado += economizado;
+            Logger.info("Dicionário %-24s %,10d distintos - %,.1f MB economizados",
+                    coluna.nome, coluna.dicionario.tamanho(), economizado / 1048576.0);
+        }
 
-        // Array simples para guardar cidades (máx 1000 por estado)
-        int[] codigos = new int[1000];
-        String[] nomes = new String[1000];
-        int qtd = 0;
+        Logger.info("Dicionários de texto: %,.1f MB economizados no total", totalEconomizado / 1048576.0);
+    }
 
-        for (int i = 0; i < totalRegistros && qtd < 1000; i++) {
-            int cod = eleitores[i].codCidade();
-            boolean existe = false;
+    /**
+     * Leitura original: BufferedReader + split + PerfilEleitor.fromCsv.
+     */
+    private void lerCsvBufferedReader(String arquivo) throws IOException {
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(
+                        new FileInputStream(arquivo), "ISO-8859-1"), 131072)) {
+
+            br.readLine(); // Pular cabeçalho
+            String linha;
+
+            while ((linha = br.readLine()) != null) {
+                try {
+                    String[] campos = linha.split(";");
+                    if (campos.length >= 31) {
+                        armazem.adicionar(PerfilEleitor.fromCsv(campos));
+                        totalRegistros++;
+                    }
+                } catch (Exception e) {
+                    // Ignorar linhas com erro (didático)
+                }
 
-            for (int j = 0; j < qtd; j++) {
-                if (codigos[j] == cod) {
-                    existe = true;
-                    break;
+                if (totalRegistros % 1000000 == 0 && totalRegistros > 0) {
+                    System.out.printf("  Processados: %,d registros...%n", totalRegistros);
                 }
             }
+        }
+    }
 
-            if (!existe) {
-                codigos[qtd] = cod;
-                nomes[qtd] = eleitores[i].nomeCidade();
-                qtd++;
-            }
+    /**
+     * Leitura com o arquivo mapeado em memória e campos separados direto nos bytes.
+     */
+    private void lerCsvMapeado(String arquivo) throws IOException {
+        long inicio = System.nanoTime();
+        long bytes;
+        long linhasIgnoradas;
+
+        if (threadsLeitura > 1) {
+            LeitorCsvParalelo leitor = new LeitorCsvParalelo(threadsLeitura);
+            bytes = leitor.carregar(arquivo, armazem);
+            linhasIgnoradas = leitor.linhasIgnoradas();
+        } else {
+            LeitorCsvMapeado leitor = new LeitorCsvMapeado(armazem);
+            bytes = leitor.carregar(arquivo);
+            linhasIgnoradas = leitor.linhasIgnoradas();
         }
+        totalRegistros = armazem.tamanho();
 
-        // Ordenar por código (bubble sort simples)
-        for (int i = 0; i < qtd - 1; i++) {
-            for (int j = i + 1; j < qtd; j++) {
-                if (codigos[i] > codigos[j]) {
-                    int tempCod = codigos[i];
-                    codigos[i] = codigos[j];
-                    codigos[j] = tempCod;
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        Logger.info("Leitor mapeado (%d threads): %,.1f MB em %.2f s (%,.0f MB/s), %,d linhas ignoradas",
+                threadsLeitura, bytes / 1048576.0, segundos, bytes / 1048576.0 / Math.max(segundos, 1e-9),
+                linhasIgnoradas);
+    }
 
-                    String tempNome = nomes[i];
-                    nomes[i] = nomes[j];
-                    nomes[j] = tempNome;
+    /**
+     * Constrói a árvore por cidade e o índice composto a partir do armazém.
+     */
+    private void construirIndices() {
+        indiceFaixas = null;
+        if (agruparLinhas() && totalRegistros > 0) {
+            construirIndicesAgrupados();
+            return;
+        }
+
+        // Populando a árvore binária por cidade 
+        if (totalRegistros > 0) {
+            long inicioArvore = Metricas.iniciar();
+            // os índices guardam só as linhas do armazém (int), não registros
+            final int[] codCidade = armazem.codCidade;
+            indicePorCidade = null;
+            if (usarIndicePrimitivo) {
+                indicePorCidade = IndiceInteiro.construir(codCidade, totalRegistros);
+                arvorePorCidade = null;
+            } else if (usarCargaEmLote) {
+                arvorePorCidade = ArvoreBinaria.construirBalanceada(codCidade, totalRegistros);
+            } else {
+                arvorePorCidade = novaArvore();
+                for (int i = 0; i < totalRegistros; i++) {
+                    Integer chave = codCidade[i];
+                    arvorePorCidade.inserir(chave, i);
                 }
+                // sem a sobra dos arrays dos nós (e buscar() sem cópia)
+                arvorePorCidade.compactar();
             }
+            long tempoArvore = Metricas.emMs(Metricas.registrar(Metricas.INDICE_ARVORE, inicioArvore));
+            Logger.registrar(indicePorCidade != null
+                    ? "Construção do índice por cidade (chaves int)"
+                    : "Construção da árvore binária (por cidade)", tempoArvore);
+
+            construirIndiceHierarquico();
+        } else {
+            arvorePorCidade = novaArvore();
+            indicePorCidade = null;
+            catalogoCidades = null;
+            indiceHierarquico = null;
+            cubo = null;
+            indiceBitmap = null;
         }
+    }
 
-        // Criar resultado
-        String[][] resultado = new String[qtd][2];
-        for (int i = 0; i < qtd; i++) {
-            resultado[i][0] = String.valueOf(codigos[i]);
-            resultado[i][1] = nomes[i];
+    /**
+     * Constrói a árvore por cidade a partir de linhas já agrupadas (snapshot),
+     * sem a passada de agrupamento.
+     */
+    private void construirIndicesDeGrupos(int[] cidades, int[][] linhasPorCidade) {
+        long inicioArvore = Metricas.iniciar();
+        indiceFaixas = null;
+
+        // o snapshot já traz as linhas de cada cidade
+        int[][] grupos = linhasPorCidade;
+        if (usarIndicePrimitivo) {
+            indicePorCidade = IndiceInteiro.deGrupos(cidades, grupos);
+            arvorePorCidade = null;
+        } else {
+            Integer[] chaves = new Integer[cidades.length];
+            for (int c = 0; c < cidades.length; c++) {
+                chaves[c] = cidades[c];
+            }
+            arvorePorCidade = ArvoreBinaria.construirDeGrupos(chaves, grupos);
+            indicePorCidade = null;
         }
 
-        return resultado;
+        long tempoArvore = Metricas.emMs(Metricas.registrar(Metricas.INDICE_ARVORE, inicioArvore));
+        Logger.registrar("Construção da árvore binária (por cidade, do snapshot)", tempoArvore);
+
+        construirIndiceHierarquico();
+    }
+
+    private void construirIndiceHierarquico() {
+        if (indicePorCidade != null) {
+            Logger.info("Índice por cidade (IndiceInteiro): %d cidades", indicePorCidade.tamanho());
+        } else {
+            Logger.info("Árvore por cidade (%s): %d nós, altura %d",
+                    arvorePorCidade.getClass().getSimpleName(),
+                    arvorePorCidade.tamanho(), arvorePorCidade.altura());
+        }
+
+        long inicioIndice = Metricas.iniciar();
+        indiceHierarquico = indicePorCidade != null
+                ? new IndiceHierarquico(indicePorCidade, armazem)
+                : new IndiceHierarquico(arvorePorCidade, armazem);
+        long tempoIndice = Metricas.emMs(Metricas.registrar(Metricas.INDICE_HIERARQUICO, inicioIndice));
+        Logger.registrar("Construção do índice cidade/zona/seção/local", tempoIndice);
+
+        construirCatalogoCidades();
+        construirAgregados();
+    }
+
+    // fora do heap as linhas são sempre agrupadas: o índice de faixas tem
+    // tamanho proporcional a cidades/zonas/seções, não às linhas
+    private boolean agruparLinhas() {
+        return usarArmazemAgrupado || usarArmazemForaDoHeap;
+    }
+
+    /**
+     * Agrupa as linhas do armazém por cidade/zona/seção e indexa as faixas.
+     * Não monta a árvore por cidade nem o índice composto.
+     */
+    private void construirIndicesAgrupados() {
+        long inicio = Metricas.iniciar();
+        boolean reordenou = armazem.agrupar();
+        indiceFaixas = new IndiceFaixas(armazem);
+        arvorePorCidade = null;
+        indicePorCidade = null;
+        indiceHierarquico = null;
+
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.INDICE_FAIXAS, inicio));
+        Logger.registrar(tempo, "Agrupamento por cidade/zona/seção%s e índice de faixas (%d cidades)",
+                reordenou ? "" : " (já em ordem)", indiceFaixas.totalCidades());
+
+        construirCatalogoCidades();
+        construirAgregados();
+    }
+
+    /**
+     * Catálogo de cidades a partir do índice por cidade que estiver montado
+     * (as cidades já saem em ordem e com as linhas de cada uma).
+     */
+    private void construirCatalogoCidades() {
+        long inicio = Metricas.iniciar();
+        if (indiceFaixas != null) {
+            catalogoCidades = CatalogoCidades.deFaixas(armazem, indiceFaixas);
+        } else if (indicePorCidade != null) {
+            int[][] linhasPorCidade = new int[indicePorCidade.tamanho()][];
+            for (int c = 0; c < linhasPorCidade.length; c++) {
+                linhasPorCidade[c] = indicePorCidade.grupo(c);
+            }
+            catalogoCidades = CatalogoCidades.deGrupos(armazem, indicePorCidade.chaves(), linhasPorCidade);
+        } else {
+            Comparable<Integer>[] chaves = arvorePorCidade.emOrdem();
+            int[] codigos = new int[chaves.length];
+            int[][] linhasPorCidade = new int[chaves.length][];
+            for (int c = 0; c < chaves.length; c++) {
+                codigos[c] = (Integer) chaves[c];
+                linhasPorCidade[c] = arvorePorCidade.buscar(codigos[c]);
+            }
+            catalogoCidades = CatalogoCidades.deGrupos(armazem, codigos, linhasPorCidade);
+        }
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.INDICE_CATALOGO_CIDADES, inicio));
+        Logger.registrar(tempo, "Catálogo de cidades (%d cidades)", catalogoCidades.tamanho());
+    }
+
+    /**
+     * Cubo de agregação (a partir do agrupamento por cidade/zona que o índice
+     * já fez; só se usarCubo) e índice de bitmaps (não fora do heap: os
+     * bitmaps somam alguns bytes por linha em cada dimensão).
+     */
+    private void construirAgregados() {
+        if (usarCubo) {
+            long inicioCubo = Metricas.iniciar();
+            cubo = indiceFaixas != null
+                    ? CuboAgregado.deFaixas(armazem, indiceFaixas)
+                    : CuboAgregado.deHierarquico(armazem, indiceHierarquico);
+            long tempoCubo = Metricas.emMs(Metricas.registrar(Metricas.INDICE_CUBO, inicioCubo));
+            Logger.registrar(tempoCubo, "Construção do cubo de agregação (%,d células, %.1f MB)",
+                    cubo.totalCelulas(), cubo.bytesCelulas() / 1048576.0);
+        } else {
+            cubo = null;
+        }
+
+        if (usarIndiceBitmap && !usarArmazemForaDoHeap) {
+            long inicioBitmap = Metricas.iniciar();
+            indiceBitmap = new IndiceBitmap(armazem);
+            long tempoBitmap = Metricas.emMs(Metricas.registrar(Metricas.INDICE_BITMAP, inicioBitmap));
+            Logger.registrar(tempoBitmap, "Construção do índice de bitmaps (%,d bitmaps)",
+                    indiceBitmap.totalBitmaps());
+        } else {
+            indiceBitmap = null;
+        }
+    }
+
+    /**
+     * Retorna as cidades disponíveis no estado carregado, em ordem de código.
+     *
+     * Sai do catálogo montado na carga (O(cidades), sem varrer os registros).
+     *
+     * @return Array bidimensional com [código, nome] de cada cidade
+     */
+    public String[][] getCidadesDisponiveis() {
+        if (!temDados() || catalogoCidades == null) return new String[0][0];
+        return catalogoCidades.comoTabela();
+    }
+
+    /**
+     * Catálogo de cidades do estado carregado (com registros e eleitores por cidade),
+     * ou null sem dados.
+     */
+    public CatalogoCidades getCatalogoCidades() {
+        return temDados() ? catalogoCidades : null;
     }
 
     /**
@@ -262,109 +962,98 @@ public class AppService {
             int numeroSecao, int numeroLocal,
             String filtroPerfil, String valorPerfil) {
 
-        long inicioTotal = System.currentTimeMillis();
+        long inicioTotal = Metricas.iniciar();
         long total = 0;
 
+        // CUBO: resposta direto das somas pré-calculadas na carga
+        boolean secaoOuLocal = "SECAO".equals(filtroAbrangencia) || "LOCAL".equals(filtroAbrangencia);
+        if (usarCubo && cubo != null && (!secaoOuLocal || cubo.cobreSecoesELocais())) {
+            long resultadoCubo = consultarCubo(filtroAbrangencia, codigoCidade, numeroZona,
+                    numeroSecao, numeroLocal, filtroPerfil, valorPerfil);
+
+            long tempoTotal = Metricas.emMs(Metricas.registrar(Metricas.CONSULTA_CUBO, inicioTotal));
+
+            // o plano só é compilado se a consulta for sorteada, já na thread do verificador
+            if (verificador != null) {
+                ArmazemColunar armazemAtual = armazem;
+                verificador.conferir(varreduraDeConferencia(() -> ConsultaCompilada.compilar(armazemAtual,
+                                filtroAbrangencia, codigoCidade, numeroZona, numeroSecao, numeroLocal,
+                                filtroPerfil, valorPerfil)), resultadoCubo,
+                        "cubo " + filtroAbrangencia + "/" + filtroPerfil + " cidade " + codigoCidade);
+            }
+
+            Logger.registrar(tempoTotal, "Consulta de eleitores no cubo (%s/%s)", filtroAbrangencia, filtroPerfil);
+            return resultadoCubo;
+        }
+
         boolean usarArvore = filtroAbrangencia != null && (
                 filtroAbrangencia.equals("CIDADE") ||
                 filtroAbrangencia.equals("LOCAL") ||
                 filtroAbrangencia.equals("SECAO")
         );
 
-        if (usarArvore && arvorePorCidade != null && !arvorePorCidade.estaVazia()) {
-            // BUSCA USANDO ÁRVORE
-            long inicioBuscaArvore = System.currentTimeMillis();
-            PerfilEleitor[] registrosCidade = arvorePorCidade.buscar(codigoCidade);
-            long tempoBuscaArvore = System.currentTimeMillis() - inicioBuscaArvore;
-
-            Logger.registrar("Busca na árvore por cidade " + codigoCidade, tempoBuscaArvore);
-            System.out.println("Tempo busca (árvore): " + tempoBuscaArvore + " ms");
-
-            if (registrosCidade != null) {
-                // percorre somente os registros do nó 
-                for (int i = 0; i < registrosCidade.length; i++) {
-                    PerfilEleitor e = registrosCidade[i];
-                    if (e == null) break;
-
-                    boolean passaAbrangencia = false;
-                    switch (filtroAbrangencia) {
-                        case "CIDADE":
-                            passaAbrangencia = true; 
-                            break;
-                        case "LOCAL":
-                            passaAbrangencia = (e.nrZona() == numeroZona && e.nrLocalVotacao() == numeroLocal);
-                            break;
-                        case "SECAO":
-                            passaAbrangencia = (e.nrZona() == numeroZona && e.nrSecao() == numeroSecao);
-                            break;
-                    }
+        boolean temIndiceCidade = indiceFaixas != null
+                || (indicePorCidade != null
+                        ? !indicePorCidade.estaVazio()
+                        : arvorePorCidade != null && !arvorePorCidade.estaVazia());
 
-                    if (!passaAbrangencia) continue;
-
-                    // aplicar filtros de perfil
-                    switch (filtroPerfil) {
-                        case "TODOS":
-                            total += e.qtEleitoresPerfil();
-                            break;
-                        case "OBRIGATORIEDADE":
-                            if (e.tpObrigatoriedadeVoto().equalsIgnoreCase(valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "GENERO":
-                            if (e.dsGenero().equalsIgnoreCase(valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "FAIXA_ETARIA":
-                            if (verificarFaixaEtaria(e.cdFaixaEtaria(), valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "ESCOLARIDADE":
-                            if (verificarEscolaridade(e.cdGrauEscolaridade(), valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "ESTADO_CIVIL":
-                            if (verificarEstadoCivil(e.cdEstadoCivil(), valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "RACA_COR":
-                            if (verificarRacaCor(e.cdRacaCor(), valorPerfil)) {
-                                total += e.qtEleitoresPerfil();
-                            }
-                            break;
-                        case "DEFICIENCIA":
-                            total += e.qtEleitoresDeficiencia();
-                            break;
-                        case "BIOMETRIA":
-                            total += e.qtEleitoresBiometria();
-                            break;
-                    }
+        if (usarArvore && temIndiceCidade) {
+            ConsultaCompilada plano = ConsultaCompilada.compilar(armazem, filtroAbrangencia,
+                    codigoCidade, numeroZona, numeroSecao, numeroLocal, filtroPerfil, valorPerfil);
+
+            // BUSCA USANDO ÁRVORE
+            // LOCAL e SECAO descem no índice composto e já recebem só os registros
+            // daquele local/seção; CIDADE usa a árvore por cidade.
+            // Com o armazém agrupado o índice devolve só a faixa de linhas.
+            long inicioBuscaArvore = Metricas.iniciar();
+            int[] linhas = null;
+            long faixa = IndiceFaixas.SEM_FAIXA;
+            if (indiceFaixas != null) {
+                // o local não entra na ordenação: LOCAL varre a zona e o plano filtra o local
+                if (filtroAbrangencia.equals("SECAO")) {
+                    faixa = indiceFaixas.faixaSecao(codigoCidade, numeroZona, numeroSecao);
+                } else if (filtroAbrangencia.equals("LOCAL")) {
+                    faixa = indiceFaixas.faixaZona(codigoCidade, numeroZona);
+                } else {
+                    faixa = indiceFaixas.faixaCidade(codigoCidade);
                 }
+            } else if (indiceHierarquico != null && filtroAbrangencia.equals("LOCAL")) {
+                linhas = indiceHierarquico.buscarLocal(codigoCidade, numeroZona, numeroLocal);
+            } else if (indiceHierarquico != null && filtroAbrangencia.equals("SECAO")) {
+                linhas = indiceHierarquico.buscarSecao(codigoCidade, numeroZona, numeroSecao);
+            } else {
+                linhas = indicePorCidade != null
+                        ? indicePorCidade.buscar(codigoCidade)
+                        : arvorePorCidade.buscar(codigoCidade);
+            }
+            long tempoBuscaArvore = Metricas.emMs(System.nanoTime() - inicioBuscaArvore);
+            contarAcesso(faixa != IndiceFaixas.SEM_FAIXA || (linhas != null && linhas.length > 0));
+
+            Logger.registrar(tempoBuscaArvore, "Busca no índice (%s) cidade %d", filtroAbrangencia, codigoCidade);
+
+            // as linhas podem vir do índice por cidade (CIDADE) ou do índice composto
+            // (LOCAL/SECAO); o plano confere a abrangência de qualquer forma
+            if (faixa != IndiceFaixas.SEM_FAIXA) {
+                int inicioFaixa = IndiceFaixas.inicio(faixa);
+                int fimFaixa = IndiceFaixas.fim(faixa);
+                total = armazemForaDoHeap != null
+                        ? plano.somar(armazemForaDoHeap, inicioFaixa, fimFaixa)
+                        : plano.somar(armazem, inicioFaixa, fimFaixa);
+            } else if (linhas != null) {
+                total = armazemForaDoHeap != null
+                        ? plano.somar(armazemForaDoHeap, linhas)
+                        : plano.somar(armazem, linhas);
             }
+            Metricas.registrar(Metricas.CONSULTA_ARVORE, inicioBuscaArvore);
 
-            // PARA COMPARAÇÃO
-            long inicioLinear = System.currentTimeMillis();
-            long totalLinear = calcularEleitoresLinear(
-                    filtroAbrangencia, codigoCidade, numeroZona, numeroSecao, numeroLocal,
-                    filtroPerfil, valorPerfil, /*registrarTempo*/ false
-            );
-            long tempoLinear = System.currentTimeMillis() - inicioLinear;
-
-            Logger.registrar("Busca linear (array) para comparação - cidade " + codigoCidade, tempoLinear);
-            System.out.println("Tempo busca (linear): " + tempoLinear + " ms");
-
-            // Checagem de consistência 
-            if (total != totalLinear) {
-                System.out.println("Atenção: resultado árvore (" + total + ") difere de resultado linear (" + totalLinear + ").");
-                Logger.erro("Divergência de resultados: árvore=" + total + " linear=" + totalLinear);
+            // conferência com a busca linear só se estiver ligada, e fora desta thread
+            if (verificador != null) {
+                verificador.conferir(varreduraDeConferencia(() -> plano), total,
+                        filtroAbrangencia + "/" + filtroPerfil + " cidade " + codigoCidade);
             }
 
-            long tempoTotal = System.currentTimeMillis() - inicioTotal;
-            Logger.registrar("Consulta de eleitores (" + filtroAbrangencia + "/" + filtroPerfil + ")", tempoTotal);
+            long tempoTotal = Metricas.emMs(System.nanoTime() - inicioTotal);
+            Logger.registrar(tempoTotal, "Consulta de eleitores (%s/%s)", filtroAbrangencia, filtroPerfil);
             return total;
         }
 
@@ -374,115 +1063,267 @@ public class AppService {
                 filtroPerfil, valorPerfil, /*registrarTempo*/ true
         );
 
-        long tempoTotal = System.currentTimeMillis() - inicioTotal;
-        Logger.registrar("Consulta de eleitores (" + filtroAbrangencia + "/" + filtroPerfil + ")", tempoTotal);
+        long tempoTotal = Metricas.emMs(System.nanoTime() - inicioTotal);
+        Logger.registrar(tempoTotal, "Consulta de eleitores (%s/%s)", filtroAbrangencia, filtroPerfil);
 
         return resultadoLinear;
     }
 
     /**
-     * Versão linear (array) do cálculo de eleitores.
-     *
-     * @param registrarTempo se true, o método registra o tempo no Logger.
-     *                       se false, não registra.
+     * Varredura linear de referência para o verificador. Guarda os armazéns
+     * atuais: a troca de estado não afeta a conferência já agendada.
      */
-    public long calcularEleitoresLinear(
+    private LongSupplier varreduraDeConferencia(Supplier<ConsultaCompilada> plano) {
+        ArmazemColunar armazemAtual = armazem;
+        ArmazemForaDoHeap foraAtual = armazemForaDoHeap;
+        return () -> foraAtual != null
+                ? plano.get().somar(foraAtual, 0, foraAtual.tamanho())
+                : plano.get().somar(armazemAtual, 0, armazemAtual.tamanho());
+    }
+
+    /**
+     * Responde a consulta pelo cubo de agregação: localiza a célula da
+     * abrangência e soma os valores aceitos pelo filtro de perfil.
+     */
+    private long consultarCubo(
             String filtroAbrangencia, int codigoCidade, int numeroZona,
             int numeroSecao, int numeroLocal,
-            String filtroPerfil, String valorPerfil,
-            boolean registrarTempo) {
+            String filtroPerfil, String valorPerfil) {
 
-        long inicio = System.currentTimeMillis();
-        long total = 0;
+        int celula;
+        switch (filtroAbrangencia) {
+            case "ESTADO":
+                celula = cubo.celulaEstado();
+                break;
+            case "CIDADE":
+                celula = cubo.celulaCidade(codigoCidade);
+                break;
+            case "LOCAL":
+                celula = cubo.celulaLocal(codigoCidade, numeroZona, numeroLocal);
+                break;
+            case "SECAO":
+                celula = cubo.celulaSecao(codigoCidade, numeroZona, numeroSecao);
+                break;
+            default:
+                return 0;
+        }
+        contarAcesso(celula >= 0);
+        if (celula < 0) {
+            return 0;
+        }
 
-        for (int i = 0; i < totalRegistros; i++) {
-            PerfilEleitor e = eleitores[i];
-
-            // Verificar abrangência
-            boolean passaAbrangencia = false;
-
-            switch (filtroAbrangencia) {
-                case "ESTADO":
-                    passaAbrangencia = true;
-                    break;
-                case "CIDADE":
-                    passaAbrangencia = (e.codCidade() == codigoCidade);
-                    break;
-                case "LOCAL":
-                    passaAbrangencia = (e.codCidade() == codigoCidade &&
-                                       e.nrZona() == numeroZona &&
-                                       e.nrLocalVotacao() == numeroLocal);
-                    break;
-                case "SECAO":
-                    passaAbrangencia = (e.codCidade() == codigoCidade &&
-                                       e.nrZona() == numeroZona &&
-                                       e.nrSecao() == numeroSecao);
-                    break;
+        switch (filtroPerfil) {
+            case "TODOS":
+                return cubo.medida(celula, CuboAgregado.MEDIDA_ELEITORES);
+            case "DEFICIENCIA":
+                return cubo.medida(celula, CuboAgregado.MEDIDA_DEFICIENCIA);
+            case "BIOMETRIA":
+                return cubo.medida(celula, CuboAgregado.MEDIDA_BIOMETRIA);
+        }
+        DimensaoPerfil dimensao = DimensaoPerfil.doFiltro(filtroPerfil);
+        if (dimensao == null) {
+            return 0;
+        }
+
+        // só os filtros por valor precisam do plano (para saber quais valores aceitar)
+        ConsultaCompilada plano = ConsultaCompilada.compilar(armazem, filtroAbrangencia,
+                codigoCidade, numeroZona, numeroSecao, numeroLocal, filtroPerfil, valorPerfil);
+        return cubo.somar(celula, dimensao, plano::aceitaValor);
+    }
+
+    /**
+     * Calcula os eleitores que atendem a vários filtros de perfil ao mesmo
+     * tempo (ex: mulheres de 16 ou 17 anos com ensino médio completo numa zona).
+     *
+     * Filtros repetidos da mesma dimensão são combinados com OU (16 OU 17
+     * anos); dimensões diferentes são combinadas com E.
+     *
+     * @param codigoCidade Código da cidade, ou -1 para o estado todo
+     * @param numeroZona Número da zona, ou -1 para todas
+     * @param filtrosPerfil GENERO, OBRIGATORIEDADE, FAIXA_ETARIA, ESCOLARIDADE,
+     *                      ESTADO_CIVIL ou RACA_COR
+     * @param valoresPerfil Valor de cada filtro (mesmas opções de calcularEleitores)
+     */
+    public long calcularEleitoresCombinados(int codigoCidade, int numeroZona,
+                                            String[] filtrosPerfil, String[] valoresPerfil) {
+        long inicio = Metricas.iniciar();
+
+        // um predicado por dimensão, juntando com OU os valores repetidos
+        // (filtro desconhecido: dimensão null, que não aceita nenhuma linha)
+        DimensaoPerfil[] dimensoes = new DimensaoPerfil[filtrosPerfil.length];
+        IntPredicate[] predicados = new IntPredicate[filtrosPerfil.length];
+        int qtdDimensoes = 0;
+        for (int i = 0; i < filtrosPerfil.length; i++) {
+            DimensaoPerfil dimensao = DimensaoPerfil.doFiltro(filtrosPerfil[i]);
+            IntPredicate aceita = predicadoPerfil(dimensao, filtrosPerfil[i], valoresPerfil[i]);
+            int d = 0;
+            while (d < qtdDimensoes && dimensoes[d] != dimensao) {
+                d++;
             }
+            if (d == qtdDimensoes) {
+                dimensoes[qtdDimensoes] = dimensao;
+                predicados[qtdDimensoes++] = aceita;
+            } else {
+                predicados[d] = predicados[d].or(aceita);
+            }
+        }
 
-            if (!passaAbrangencia) continue;
+        long total = 0;
+        String metodo;
 
-            // Verificar perfil e somar eleitores
-            switch (filtroPerfil) {
-                case "TODOS":
-                    total += e.qtEleitoresPerfil();
-                    break;
+        if (indiceBitmap != null) {
+            metodo = "bitmaps";
+            BitmapCompactado linhas = null;
+            if (codigoCidade >= 0) {
+                linhas = indiceBitmap.linhasDaCidade(codigoCidade);
+            }
+            if (numeroZona >= 0) {
+                linhas = intersectar(linhas, indiceBitmap.linhasDaZona(numeroZona));
+            }
+            for (int d = 0; d < qtdDimensoes; d++) {
+                BitmapCompactado daDimensao = dimensoes[d] == null
+                        ? new BitmapCompactado()
+                        : indiceBitmap.linhas(dimensoes[d], predicados[d]);
+                linhas = intersectar(linhas, daDimensao);
+            }
 
-                case "OBRIGATORIEDADE":
-                    if (e.tpObrigatoriedadeVoto().equalsIgnoreCase(valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+            if (linhas != null) {
+                total = armazemForaDoHeap != null
+                        ? linhas.somar(armazemForaDoHeap.coluna(ArmazemForaDoHeap.QT_ELEITORES_PERFIL))
+                        : linhas.somar(armazem.qtEleitoresPerfil);
+            } else {
+                // sem cidade, zona nem filtros: o estado todo
+                total = varrer(ConsultaCompilada.compilar(armazem, "ESTADO", 0, 0, 0, 0, "TODOS", ""), true);
+            }
+        } else if (armazemForaDoHeap != null) {
+            metodo = "varredura fora do heap";
+            total = varrerCombinadaForaDoHeap(codigoCidade, numeroZona, dimensoes, predicados, qtdDimensoes);
+        } else {
+            metodo = "varredura";
+            int[][] colunas = new int[qtdDimensoes][];
+            for (int d = 0; d < qtdDimensoes; d++) {
+                if (dimensoes[d] == null) {
+                    return 0;
+                }
+                colunas[d] = dimensoes[d].coluna(armazem);
+            }
 
-                case "GENERO":
-                    if (e.dsGenero().equalsIgnoreCase(valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+            for (int i = 0; i < totalRegistros; i++) {
+                if (codigoCidade >= 0 && armazem.codCidade[i] != codigoCidade) continue;
+                if (numeroZona >= 0 && armazem.nrZona[i] != numeroZona) continue;
 
-                case "FAIXA_ETARIA":
-                    if (verificarFaixaEtaria(e.cdFaixaEtaria(), valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+                boolean aceita = true;
+                for (int d = 0; d < qtdDimensoes && aceita; d++) {
+                    aceita = predicados[d].test(colunas[d][i]);
+                }
+                if (aceita) {
+                    total += armazem.qtEleitoresPerfil[i];
+                }
+            }
+        }
 
-                case "ESCOLARIDADE":
-                    if (verificarEscolaridade(e.cdGrauEscolaridade(), valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.CONSULTA_COMBINADA, inicio));
+        Logger.registrar(tempo, "Consulta combinada de eleitores (%d dimensões, %s)", qtdDimensoes, metodo);
 
-                case "ESTADO_CIVIL":
-                    if (verificarEstadoCivil(e.cdEstadoCivil(), valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+        return total;
+    }
 
-                case "RACA_COR":
-                    if (verificarRacaCor(e.cdRacaCor(), valorPerfil)) {
-                        total += e.qtEleitoresPerfil();
-                    }
-                    break;
+    private long varrerCombinadaForaDoHeap(int codigoCidade, int numeroZona, DimensaoPerfil[] dimensoes,
+                                          IntPredicate[] predicados, int qtdDimensoes) {
+        ArmazemForaDoHeap fora = armazemForaDoHeap;
+        MemorySegment[] colunas = new MemorySegment[qtdDimensoes];
+        for (int d = 0; d < qtdDimensoes; d++) {
+            if (dimensoes[d] == null) {
+                return 0;
+            }
+            colunas[d] = fora.coluna(dimensoes[d].campoForaDoHeap);
+        }
+        MemorySegment codCidade = fora.coluna(ArmazemForaDoHeap.COD_CIDADE);
+        MemorySegment nrZona = fora.coluna(ArmazemForaDoHeap.NR_ZONA);
+        MemorySegment qtEleitores = fora.coluna(ArmazemForaDoHeap.QT_ELEITORES_PERFIL);
 
-                case "DEFICIENCIA":
-                    total += e.qtEleitoresDeficiencia();
-                    break;
+        long total = 0;
+        for (int i = 0; i < totalRegistros; i++) {
+            if (codigoCidade >= 0 && codCidade.getAtIndex(ValueLayout.JAVA_INT, i) != codigoCidade) continue;
+            if (numeroZona >= 0 && nrZona.getAtIndex(ValueLayout.JAVA_INT, i) != numeroZona) continue;
 
-                case "BIOMETRIA":
-                    total += e.qtEleitoresBiometria();
-                    break;
+            boolean aceita = true;
+            for (int d = 0; d < qtdDimensoes && aceita; d++) {
+                aceita = predicados[d].test(colunas[d].getAtIndex(ValueLayout.JAVA_INT, i));
+            }
+            if (aceita) {
+                total += qtEleitores.getAtIndex(ValueLayout.JAVA_INT, i);
             }
         }
+        return total;
+    }
+
+    private static void contarAcesso(boolean encontrou) {
+        Metricas.contar(encontrou ? Metricas.ACERTOS_INDICE : Metricas.FALHAS_INDICE, 1);
+    }
+
+    private static BitmapCompactado intersectar(BitmapCompactado linhas, BitmapCompactado outras) {
+        return linhas == null ? outras : BitmapCompactado.e(linhas, outras);
+    }
+
+    /**
+     * Predicado sobre o valor da coluna do filtro (código do dicionário ou cd_*).
+     */
+    private IntPredicate predicadoPerfil(DimensaoPerfil dimensao, String filtroPerfil, String valorPerfil) {
+        if (dimensao == null) {
+            return c -> false;
+        }
+        ConsultaCompilada plano = ConsultaCompilada.compilar(armazem, "ESTADO", 0, 0, 0, 0,
+                filtroPerfil, valorPerfil);
+        return plano::aceitaValor;
+    }
+
+    /**
+     * Versão linear (array) do cálculo de eleitores.
+     *
+     * @param registrarTempo se true, o método registra o tempo no Logger.
+     *                       se false, não registra.
+     */
+    public long calcularEleitoresLinear(
+            String filtroAbrangencia, int codigoCidade, int numeroZona,
+            int numeroSecao, int numeroLocal,
+            String filtroPerfil, String valorPerfil,
+            boolean registrarTempo) {
 
-        long tempo = System.currentTimeMillis() - inicio;
+        long inicio = Metricas.iniciar();
+
+        // filtros resolvidos uma vez; o laço só compara inteiros
+        ConsultaCompilada plano = ConsultaCompilada.compilar(armazem, filtroAbrangencia,
+                codigoCidade, numeroZona, numeroSecao, numeroLocal, filtroPerfil, valorPerfil);
+        // estado todo: varre em paralelo, por segmentos
+        long total = varrer(plano, "ESTADO".equals(filtroAbrangencia));
+
+        // sem registrarTempo a chamada também fica fora do histograma
+        long tempo = Metricas.emMs(registrarTempo
+                ? Metricas.registrar(Metricas.CONSULTA_LINEAR, inicio)
+                : System.nanoTime() - inicio);
         if (registrarTempo) {
-            Logger.registrar("Consulta linear (array) (" + filtroAbrangencia + "/" + filtroPerfil + ")", tempo);
-            System.out.println("Tempo busca (linear): " + tempo + " ms");
+            Logger.registrar(tempo, "Consulta linear (array) (%s/%s)", filtroAbrangencia, filtroPerfil);
         }
 
         return total;
     }
 
+    /**
+     * Soma a medida do plano sobre todas as linhas, no heap ou fora dele.
+     *
+     * @param paralelo true usa o MotorVarredura (segmentos em paralelo)
+     */
+    private long varrer(ConsultaCompilada plano, boolean paralelo) {
+        ArmazemForaDoHeap fora = armazemForaDoHeap;
+        if (fora != null) {
+            return paralelo ? motorVarredura.somar(fora, plano) : plano.somar(fora, 0, fora.tamanho());
+        }
+        return paralelo
+                ? motorVarredura.somar(armazem, totalRegistros, plano)
+                : plano.somar(armazem, 0, totalRegistros);
+    }
+
     /**
      * Calcula estatísticas gerais dos dados carregados.
      *
@@ -491,24 +1332,17 @@ public class AppService {
     public long[] calcularEstatisticas() {
         if (!temDados()) return new long[4];
 
-        long inicio = System.currentTimeMillis();
-
-        long totalEleitores = 0;
-        long totalBiometria = 0;
-        long totalDeficiencia = 0;
-        long totalNomeSocial = 0;
+        long inicio = Metricas.iniciar();
 
-        for (int i = 0; i < totalRegistros; i++) {
-            totalEleitores += eleitores[i].qtEleitoresPerfil();
-            totalBiometria += eleitores[i].qtEleitoresBiometria();
-            totalDeficiencia += eleitores[i].qtEleitoresDeficiencia();
-            totalNomeSocial += eleitores[i].qtEleitoresIncNmSocial();
-        }
+        // {eleitores, biometria, deficiência, nome social}
+        long[] totais = armazemForaDoHeap != null
+                ? motorVarredura.estatisticas(armazemForaDoHeap)
+                : motorVarredura.estatisticas(armazem, totalRegistros);
 
-        long tempo = System.currentTimeMillis() - inicio;
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.ESTATISTICAS, inicio));
         Logger.registrar("Cálculo de estatísticas gerais", tempo);
 
-        return new long[]{totalEleitores, totalBiometria, totalDeficiencia, totalNomeSocial};
+        return totais;
     }
 
     /**
@@ -517,64 +1351,19 @@ public class AppService {
     public PerfilEleitor[] listarRegistros(int quantidade) {
         if (!temDados()) return new PerfilEleitor[0];
 
-        long inicio = System.currentTimeMillis();
+        long inicio = Metricas.iniciar();
 
         int limite = Math.min(quantidade, totalRegistros);
         PerfilEleitor[] resultado = new PerfilEleitor[limite];
-        System.arraycopy(eleitores, 0, resultado, 0, limite);
-
-        long tempo = System.currentTimeMillis() - inicio;
-        Logger.registrar("Listagem de " + limite + " registros", tempo);
-
-        return resultado;
-    }
-
-    // ========== Métodos auxiliares de verificação ==========
-
-    // Códigos das faixas etárias conforme padrão do TSE
-    // Índice 0 = opção 1 (16 anos), índice 1 = opção 2 (17 anos), etc.
-    private static final int[] CODIGOS_FAIXA_ETARIA = {
-        1600, 1700, 1800, 2100, 2500, 3000, 3500, 4000, 4500,
-        5000, 5500, 6000, 6500, 7000, 7500, 8000, 8500, 9000, 9500, 10000
-    };
-
-    private boolean verificarFaixaEtaria(int codigo, String opcao) {
-        try {
-            int opcaoNum = Integer.parseInt(opcao);
-            if (opcaoNum < 1 || opcaoNum > CODIGOS_FAIXA_ETARIA.length) {
-                return false;
-            }
-            return codigo == CODIGOS_FAIXA_ETARIA[opcaoNum - 1];
-        } catch (NumberFormatException e) {
-            return false;
+        for (int i = 0; i < limite; i++) {
+            resultado[i] = armazemForaDoHeap != null
+                    ? armazemForaDoHeap.materializar(i)
+                    : armazem.materializar(i);
         }
-    }
 
-    private boolean verificarEscolaridade(int codigo, String opcao) {
-        try {
-            int opcaoNum = Integer.parseInt(opcao);
-            return codigo == opcaoNum;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean verificarEstadoCivil(int codigo, String opcao) {
-        try {
-            int opcaoNum = Integer.parseInt(opcao);
-            int[] mapa = {0, 1, 3, 9, 5, 7};
-            return codigo == mapa[opcaoNum];
-        } catch (Exception e) {
-            return false;
-        }
-    }
+        long tempo = Metricas.emMs(Metricas.registrar(Metricas.LISTAGEM, inicio));
+        Logger.registrar(tempo, "Listagem de %d registros", limite);
 
-    private boolean verificarRacaCor(int codigo, String opcao) {
-        try {
-            int opcaoNum = Integer.parseInt(opcao);
-            return codigo == opcaoNum;
-        } catch (NumberFormatException e) {
-            return false;
-        }
+        return resultado;
     }
 }
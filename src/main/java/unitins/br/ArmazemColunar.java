@@ -0,0 +1,602 @@
+package unitins.br;
+
+import java.util.Arrays;
+
+/**
+ * Armazenamento colunar dos registros do TSE.
+ *
+ * Em vez de um objeto PerfilEleitor por linha (31 campos, ~15 Strings),
+ * cada campo vira uma coluna: os números ficam em int[] e os textos são
+ * codificados por dicionário (int[] de códigos + uma cópia de cada valor).
+ * Assim "MASCULINO", o nome da cidade, a data de geração etc. existem uma
+ * vez só na memória, e as varreduras percorrem arrays primitivos.
+ *
+ * Os objetos PerfilEleitor são montados apenas quando pedidos (materializar).
+ */
+public class ArmazemColunar {
+
+    private static final double FATOR_CRESCIMENTO = 1.5;
+
+    /**
+     * Coluna de texto codificada por dicionário.
+     */
+    public static class ColunaTexto {
+        public final String nome; // nome do campo no CSV do TSE
+        public final Dicionario dicionario = new Dicionario();
+        public int[] codigos;
+
+        ColunaTexto(String nome, int capacidade) {
+            this.nome = nome;
+            this.codigos = new int[capacidade];
+        }
+
+        public String valor(int linha) {
+            return dicionario.valor(codigos[linha]);
+        }
+    }
+
+    private int tamanho;
+    private int capacidade;
+
+    // colunas numéricas
+    public int[] anoEleicao;
+    public int[] codCidade;
+    public int[] nrZona;
+    public int[] nrSecao;
+    public int[] nrLocalVotacao;
+    public int[] cdGenero;
+    public int[] cdEstadoCivil;
+    public int[] cdFaixaEtaria;
+    public int[] cdGrauEscolaridade;
+    public int[] cdRacaCor;
+    public int[] cdIdentidadeGenero;
+    public int[] cdQuilombola;
+    public int[] cdInterpreteLibras;
+    public int[] qtEleitoresPerfil;
+    public int[] qtEleitoresBiometria;
+    public int[] qtEleitoresDeficiencia;
+    public int[] qtEleitoresIncNmSocial;
+
+    // colunas de texto (dicionário)
+    public final ColunaTexto dtGeracao;
+    public final ColunaTexto hhGeracao;
+    public final ColunaTexto estado;
+    public final ColunaTexto nomeCidade;
+    public final ColunaTexto nmLocalVotacao;
+    public final ColunaTexto dsGenero;
+    public final ColunaTexto dsEstadoCivil;
+    public final ColunaTexto dsFaixaEtaria;
+    public final ColunaTexto dsGrauEscolaridade;
+    public final ColunaTexto dsRacaCor;
+    public final ColunaTexto dsIdentidadeGenero;
+    public final ColunaTexto dsQuilombola;
+    public final ColunaTexto dsInterpreteLibras;
+    public final ColunaTexto tpObrigatoriedadeVoto;
+
+    public ArmazemColunar(int capacidadeInicial) {
+        this.tamanho = 0;
+        this.capacidade = Math.max(capacidadeInicial, 16);
+
+        anoEleicao = new int[capacidade];
+        codCidade = new int[capacidade];
+        nrZona = new int[capacidade];
+        nrSecao = new int[capacidade];
+        nrLocalVotacao = new int[capacidade];
+        cdGenero = new int[capacidade];
+        cdEstadoCivil = new int[capacidade];
+        cdFaixaEtaria = new int[capacidade];
+        cdGrauEscolaridade = new int[capacidade];
+        cdRacaCor = new int[capacidade];
+        cdIdentidadeGenero = new int[capacidade];
+        cdQuilombola = new int[capacidade];
+        cdInterpreteLibras = new int[capacidade];
+        qtEleitoresPerfil = new int[capacidade];
+        qtEleitoresBiometria = new int[capacidade];
+        qtEleitoresDeficiencia = new int[capacidade];
+        qtEleitoresIncNmSocial = new int[capacidade];
+
+        dtGeracao = new ColunaTexto("DT_GERACAO", capacidade);
+        hhGeracao = new ColunaTexto("HH_GERACAO", capacidade);
+        estado = new ColunaTexto("SG_UF", capacidade);
+        nomeCidade = new ColunaTexto("NM_MUNICIPIO", capacidade);
+        nmLocalVotacao = new ColunaTexto("NM_LOCAL_VOTACAO", capacidade);
+        dsGenero = new ColunaTexto("DS_GENERO", capacidade);
+        dsEstadoCivil = new ColunaTexto("DS_ESTADO_CIVIL", capacidade);
+        dsFaixaEtaria = new ColunaTexto("DS_FAIXA_ETARIA", capacidade);
+        dsGrauEscolaridade = new ColunaTexto("DS_GRAU_ESCOLARIDADE", capacidade);
+        dsRacaCor = new ColunaTexto("DS_RACA_COR", capacidade);
+        dsIdentidadeGenero = new ColunaTexto("DS_IDENTIDADE_GENERO", capacidade);
+        dsQuilombola = new ColunaTexto("DS_QUILOMBOLA", capacidade);
+        dsInterpreteLibras = new ColunaTexto("DS_INTERPRETE_LIBRAS", capacidade);
+        tpObrigatoriedadeVoto = new ColunaTexto("TP_OBRIGATORIEDADE_VOTO", capacidade);
+    }
+
+    /**
+     * Retorna a quantidade de linhas armazenadas.
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Garante espaço para pelo menos capacidadeMinima linhas, para que as
+     * próximas inserções (ou anexar) não precisem realocar as colunas.
+     */
+    public void reservar(int capacidadeMinima) {
+        if (capacidadeMinima > capacidade) {
+            redimensionar(capacidadeMinima);
+        }
+    }
+
+    /**
+     * Define a quantidade de linhas válidas quando as colunas foram
+     * preenchidas diretamente (ex: leitura de snapshot).
+     */
+    void definirTamanho(int linhas) {
+        if (linhas > capacidade) {
+            throw new IllegalArgumentException("Tamanho maior que a capacidade: " + linhas);
+        }
+        this.tamanho = linhas;
+    }
+
+    /**
+     * Estimativa de bytes de heap das colunas (pela capacidade alocada) e
+     * dos dicionários das colunas de texto.
+     */
+    public long bytesEstimados() {
+        long total = 0;
+        for (int[] coluna : colunasNumericas()) {
+            if (coluna != null) {
+                total += 16 + 4L * coluna.length;
+            }
+        }
+        for (ColunaTexto coluna : colunasTexto()) {
+            if (coluna.codigos != null) {
+                total += 16 + 4L * coluna.codigos.length;
+            }
+            total += coluna.dicionario.bytesEstimados();
+        }
+        return total;
+    }
+
+    /**
+     * Solta as colunas (numéricas e códigos de texto) quando os registros
+     * passaram para um ArmazemForaDoHeap. Ficam o tamanho e os dicionários,
+     * que as consultas usam para traduzir valores em códigos.
+     */
+    void liberarColunas() {
+        anoEleicao = null;
+        codCidade = null;
+        nrZona = null;
+        nrSecao = null;
+        nrLocalVotacao = null;
+        cdGenero = null;
+        cdEstadoCivil = null;
+        cdFaixaEtaria = null;
+        cdGrauEscolaridade = null;
+        cdRacaCor = null;
+        cdIdentidadeGenero = null;
+        cdQuilombola = null;
+        cdInterpreteLibras = null;
+        qtEleitoresPerfil = null;
+        qtEleitoresBiometria = null;
+        qtEleitoresDeficiencia = null;
+        qtEleitoresIncNmSocial = null;
+
+        for (ColunaTexto coluna : colunasTexto()) {
+            coluna.codigos = null;
+        }
+    }
+
+    /**
+     * false depois de liberarColunas().
+     */
+    public boolean temColunas() {
+        return codCidade != null;
+    }
+
+    /**
+     * Retorna as colunas numéricas, na ordem usada pela serialização.
+     */
+    public int[][] colunasNumericas() {
+        return new int[][]{
+            anoEleicao, codCidade, nrZona, nrSecao, nrLocalVotacao,
+            cdGenero, cdEstadoCivil, cdFaixaEtaria, cdGrauEscolaridade, cdRacaCor,
+            cdIdentidadeGenero, cdQuilombola, cdInterpreteLibras,
+            qtEleitoresPerfil, qtEleitoresBiometria, qtEleitoresDeficiencia, qtEleitoresIncNmSocial
+        };
+    }
+
+    /**
+     * Adiciona um registro, decompondo-o nas colunas.
+     */
+    public void adicionar(PerfilEleitor p) {
+        if (tamanho >= capacidade) {
+            redimensionar(proximaCapacidade());
+        }
+
+        int i = tamanho;
+        dtGeracao.codigos[i] = dtGeracao.dicionario.codificar(p.dtGeracao());
+        hhGeracao.codigos[i] = hhGeracao.dicionario.codificar(p.hhGeracao());
+        anoEleicao[i] = p.anoEleicao();
+        estado.codigos[i] = estado.dicionario.codificar(p.estado());
+        codCidade[i] = p.codCidade();
+        nomeCidade.codigos[i] = nomeCidade.dicionario.codificar(p.nomeCidade());
+        nrZona[i] = p.nrZona();
+        nrSecao[i] = p.nrSecao();
+        nrLocalVotacao[i] = p.nrLocalVotacao();
+        nmLocalVotacao.codigos[i] = nmLocalVotacao.dicionario.codificar(p.nmLocalVotacao());
+        cdGenero[i] = p.cdGenero();
+        dsGenero.codigos[i] = dsGenero.dicionario.codificar(p.dsGenero());
+        cdEstadoCivil[i] = p.cdEstadoCivil();
+        dsEstadoCivil.codigos[i] = dsEstadoCivil.dicionario.codificar(p.dsEstadoCivil());
+        cdFaixaEtaria[i] = p.cdFaixaEtaria();
+        dsFaixaEtaria.codigos[i] = dsFaixaEtaria.dicionario.codificar(p.dsFaixaEtaria());
+        cdGrauEscolaridade[i] = p.cdGrauEscolaridade();
+        dsGrauEscolaridade.codigos[i] = dsGrauEscolaridade.dicionario.codificar(p.dsGrauEscolaridade());
+        cdRacaCor[i] = p.cdRacaCor();
+        dsRacaCor.codigos[i] = dsRacaCor.dicionario.codificar(p.dsRacaCor());
+        cdIdentidadeGenero[i] = p.cdIdentidadeGenero();
+        dsIdentidadeGenero.codigos[i] = dsIdentidadeGenero.dicionario.codificar(p.dsIdentidadeGenero());
+        cdQuilombola[i] = p.cdQuilombola();
+        dsQuilombola.codigos[i] = dsQuilombola.dicionario.codificar(p.dsQuilombola());
+        cdInterpreteLibras[i] = p.cdInterpreteLibras();
+        dsInterpreteLibras.codigos[i] = dsInterpreteLibras.dicionario.codificar(p.dsInterpreteLibras());
+        tpObrigatoriedadeVoto.codigos[i] = tpObrigatoriedadeVoto.dicionario.codificar(p.tpObrigatoriedadeVoto());
+        qtEleitoresPerfil[i] = p.qtEleitoresPerfil();
+        qtEleitoresBiometria[i] = p.qtEleitoresBiometria();
+        qtEleitoresDeficiencia[i] = p.qtEleitoresDeficiencia();
+        qtEleitoresIncNmSocial[i] = p.qtEleitoresIncNmSocial();
+
+        tamanho++;
+    }
+
+    /**
+     * Adiciona uma linha já decodificada, na ordem dos 31 campos do CSV.
+     * Nos campos numéricos vem o próprio valor; nos campos de texto vem o
+     * código do dicionário da coluna correspondente (ver colunasTextoPorCampoCsv).
+     * Usado pelos leitores que não passam por PerfilEleitor.
+     */
+    public void adicionarCodificado(int[] v) {
+        if (tamanho >= capacidade) {
+            redimensionar(proximaCapacidade());
+        }
+
+        int i = tamanho;
+        dtGeracao.codigos[i] = v[0];
+        hhGeracao.codigos[i] = v[1];
+        anoEleicao[i] = v[2];
+        estado.codigos[i] = v[3];
+        codCidade[i] = v[4];
+        nomeCidade.codigos[i] = v[5];
+        nrZona[i] = v[6];
+        nrSecao[i] = v[7];
+        nrLocalVotacao[i] = v[8];
+        nmLocalVotacao.codigos[i] = v[9];
+        cdGenero[i] = v[10];
+        dsGenero.codigos[i] = v[11];
+        cdEstadoCivil[i] = v[12];
+        dsEstadoCivil.codigos[i] = v[13];
+        cdFaixaEtaria[i] = v[14];
+        dsFaixaEtaria.codigos[i] = v[15];
+        cdGrauEscolaridade[i] = v[16];
+        dsGrauEscolaridade.codigos[i] = v[17];
+        cdRacaCor[i] = v[18];
+        dsRacaCor.codigos[i] = v[19];
+        cdIdentidadeGenero[i] = v[20];
+        dsIdentidadeGenero.codigos[i] = v[21];
+        cdQuilombola[i] = v[22];
+        dsQuilombola.codigos[i] = v[23];
+        cdInterpreteLibras[i] = v[24];
+        dsInterpreteLibras.codigos[i] = v[25];
+        tpObrigatoriedadeVoto.codigos[i] = v[26];
+        qtEleitoresPerfil[i] = v[27];
+        qtEleitoresBiometria[i] = v[28];
+        qtEleitoresDeficiencia[i] = v[29];
+        qtEleitoresIncNmSocial[i] = v[30];
+
+        tamanho++;
+    }
+
+    /**
+     * Retorna, para cada um dos 31 campos do CSV, a coluna de texto
+     * correspondente, ou null se o campo for numérico.
+     */
+    public ColunaTexto[] colunasTextoPorCampoCsv() {
+        ColunaTexto[] porCampo = new ColunaTexto[31];
+        porCampo[0] = dtGeracao;
+        porCampo[1] = hhGeracao;
+        porCampo[3] = estado;
+        porCampo[5] = nomeCidade;
+        porCampo[9] = nmLocalVotacao;
+        porCampo[11] = dsGenero;
+        porCampo[13] = dsEstadoCivil;
+        porCampo[15] = dsFaixaEtaria;
+        porCampo[17] = dsGrauEscolaridade;
+        porCampo[19] = dsRacaCor;
+        porCampo[21] = dsIdentidadeGenero;
+        porCampo[23] = dsQuilombola;
+        porCampo[25] = dsInterpreteLibras;
+        porCampo[26] = tpObrigatoriedadeVoto;
+        return porCampo;
+    }
+
+    /**
+     * Acrescenta ao final todas as linhas de outro armazém, na mesma ordem.
+     * Os códigos de texto do outro armazém são traduzidos para os
+     * dicionários deste (valores novos são cadastrados na ordem em que
+     * aparecem no outro armazém, então o resultado é determinístico).
+     */
+    public void anexar(ArmazemColunar outro) {
+        int n = outro.tamanho;
+        if (tamanho + n > capacidade) {
+            redimensionar(Math.max(tamanho + n, proximaCapacidade()));
+        }
+
+        int destino = tamanho;
+        System.arraycopy(outro.anoEleicao, 0, anoEleicao, destino, n);
+        System.arraycopy(outro.codCidade, 0, codCidade, destino, n);
+        System.arraycopy(outro.nrZona, 0, nrZona, destino, n);
+        System.arraycopy(outro.nrSecao, 0, nrSecao, destino, n);
+        System.arraycopy(outro.nrLocalVotacao, 0, nrLocalVotacao, destino, n);
+        System.arraycopy(outro.cdGenero, 0, cdGenero, destino, n);
+        System.arraycopy(outro.cdEstadoCivil, 0, cdEstadoCivil, destino, n);
+        System.arraycopy(outro.cdFaixaEtaria, 0, cdFaixaEtaria, destino, n);
+        System.arraycopy(outro.cdGrauEscolaridade, 0, cdGrauEscolaridade, destino, n);
+        System.arraycopy(outro.cdRacaCor, 0, cdRacaCor, destino, n);
+        System.arraycopy(outro.cdIdentidadeGenero, 0, cdIdentidadeGenero, destino, n);
+        System.arraycopy(outro.cdQuilombola, 0, cdQuilombola, destino, n);
+        System.arraycopy(outro.cdInterpreteLibras, 0, cdInterpreteLibras, destino, n);
+        System.arraycopy(outro.qtEleitoresPerfil, 0, qtEleitoresPerfil, destino, n);
+        System.arraycopy(outro.qtEleitoresBiometria, 0, qtEleitoresBiometria, destino, n);
+        System.arraycopy(outro.qtEleitoresDeficiencia, 0, qtEleitoresDeficiencia, destino, n);
+        System.arraycopy(outro.qtEleitoresIncNmSocial, 0, qtEleitoresIncNmSocial, destino, n);
+
+        ColunaTexto[] minhas = colunasTexto();
+        ColunaTexto[] delas = outro.colunasTexto();
+        for (int c = 0; c < minhas.length; c++) {
+            Dicionario dicionarioOutro = delas[c].dicionario;
+
+            // tradução código do outro -> código deste
+            int[] traducao = new int[dicionarioOutro.tamanho()];
+            for (int k = 0; k < traducao.length; k++) {
+                traducao[k] = minhas[c].dicionario.codificar(dicionarioOutro.valor(k));
+            }
+
+            int[] origem = delas[c].codigos;
+            int[] codigos = minhas[c].codigos;
+            for (int i = 0; i < n; i++) {
+                codigos[destino + i] = traducao[origem[i]];
+            }
+        }
+
+        tamanho += n;
+    }
+
+    /**
+     * Monta o PerfilEleitor de uma linha (sob demanda).
+     * As Strings retornadas são as do dicionário, sem cópia.
+     */
+    public PerfilEleitor materializar(int i) {
+        return new PerfilEleitor(
+            dtGeracao.valor(i),
+            hhGeracao.valor(i),
+            anoEleicao[i],
+            estado.valor(i),
+            codCidade[i],
+            nomeCidade.valor(i),
+            nrZona[i],
+            nrSecao[i],
+            nrLocalVotacao[i],
+            nmLocalVotacao.valor(i),
+            cdGenero[i],
+            dsGenero.valor(i),
+            cdEstadoCivil[i],
+            dsEstadoCivil.valor(i),
+            cdFaixaEtaria[i],
+            dsFaixaEtaria.valor(i),
+            cdGrauEscolaridade[i],
+            dsGrauEscolaridade.valor(i),
+            cdRacaCor[i],
+            dsRacaCor.valor(i),
+            cdIdentidadeGenero[i],
+            dsIdentidadeGenero.valor(i),
+            cdQuilombola[i],
+            dsQuilombola.valor(i),
+            cdInterpreteLibras[i],
+            dsInterpreteLibras.valor(i),
+            tpObrigatoriedadeVoto.valor(i),
+            qtEleitoresPerfil[i],
+            qtEleitoresBiometria[i],
+            qtEleitoresDeficiencia[i],
+            qtEleitoresIncNmSocial[i]
+        );
+    }
+
+    /**
+     * Reduz as colunas ao tamanho exato (chamar ao final da carga).
+     */
+    public void compactar() {
+        if (tamanho < capacidade) {
+            redimensionar(tamanho);
+        }
+    }
+
+    /**
+     * Reordena as linhas por (codCidade, nrZona, nrSecao), mantendo a ordem
+     * do arquivo dentro de cada seção. Depois disso cada cidade, zona e
+     * seção ocupa um trecho contíguo das colunas (ver IndiceFaixas).
+     *
+     * São três passadas de contagem estáveis (seção, depois zona, depois
+     * cidade), O(n) cada, e uma cópia de cada coluna na nova ordem.
+     *
+     * @return false se as linhas já estavam nessa ordem (nada foi copiado)
+     */
+    public boolean agrupar() {
+        if (estaAgrupado()) {
+            return false;
+        }
+
+        int[] ordem = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            ordem[i] = i;
+        }
+        ordem = ordenarEstavel(ordem, nrSecao);
+        ordem = ordenarEstavel(ordem, nrZona);
+        ordem = ordenarEstavel(ordem, codCidade);
+
+        // uma coluna por vez: o pico é uma coluna a mais, não o armazém inteiro
+        anoEleicao = permutar(anoEleicao, ordem);
+        codCidade = permutar(codCidade, ordem);
+        nrZona = permutar(nrZona, ordem);
+        nrSecao = permutar(nrSecao, ordem);
+        nrLocalVotacao = permutar(nrLocalVotacao, ordem);
+        cdGenero = permutar(cdGenero, ordem);
+        cdEstadoCivil = permutar(cdEstadoCivil, ordem);
+        cdFaixaEtaria = permutar(cdFaixaEtaria, ordem);
+        cdGrauEscolaridade = permutar(cdGrauEscolaridade, ordem);
+        cdRacaCor = permutar(cdRacaCor, ordem);
+        cdIdentidadeGenero = permutar(cdIdentidadeGenero, ordem);
+        cdQuilombola = permutar(cdQuilombola, ordem);
+        cdInterpreteLibras = permutar(cdInterpreteLibras, ordem);
+        qtEleitoresPerfil = permutar(qtEleitoresPerfil, ordem);
+        qtEleitoresBiometria = permutar(qtEleitoresBiometria, ordem);
+        qtEleitoresDeficiencia = permutar(qtEleitoresDeficiencia, ordem);
+        qtEleitoresIncNmSocial = permutar(qtEleitoresIncNmSocial, ordem);
+
+        for (ColunaTexto coluna : colunasTexto()) {
+            coluna.codigos = permutar(coluna.codigos, ordem);
+        }
+
+        capacidade = tamanho;
+        return true;
+    }
+
+    /**
+     * true se as linhas estão em ordem de (codCidade, nrZona, nrSecao).
+     */
+    public boolean estaAgrupado() {
+        for (int i = 1; i < tamanho; i++) {
+            int cmp = Integer.compare(codCidade[i - 1], codCidade[i]);
+            if (cmp == 0) cmp = Integer.compare(nrZona[i - 1], nrZona[i]);
+            if (cmp == 0) cmp = Integer.compare(nrSecao[i - 1], nrSecao[i]);
+            if (cmp > 0) return false;
+        }
+        return true;
+    }
+
+    // ordenação por contagem, estável: linhas com a mesma chave mantêm a ordem
+    // em que estão em "ordem". Os códigos do TSE são pequenos; se a faixa de
+    // valores for grande demais para o vetor de contagem, conta pela posição
+    // do valor entre os valores distintos
+    private int[] ordenarEstavel(int[] ordem, int[] chave) {
+        int minimo = Integer.MAX_VALUE;
+        int maximo = Integer.MIN_VALUE;
+        for (int i = 0; i < tamanho; i++) {
+            minimo = Math.min(minimo, chave[i]);
+            maximo = Math.max(maximo, chave[i]);
+        }
+
+        int[] distintos = null;
+        long faixa = tamanho == 0 ? 0 : (long) maximo - minimo + 1;
+        if (faixa > Math.max(1 << 20, tamanho)) {
+            distintos = Vetores.distintos(chave, 0, tamanho);
+            faixa = distintos.length;
+        }
+
+        int[] inicio = new int[(int) faixa + 1];
+        for (int i = 0; i < tamanho; i++) {
+            inicio[posicao(chave[i], minimo, distintos) + 1]++;
+        }
+        for (int k = 1; k < inicio.length; k++) {
+            inicio[k] += inicio[k - 1];
+        }
+
+        int[] ordenada = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            int linha = ordem[i];
+            ordenada[inicio[posicao(chave[linha], minimo, distintos)]++] = linha;
+        }
+        return ordenada;
+    }
+
+    private static int posicao(int valor, int minimo, int[] distintos) {
+        return distintos == null ? valor - minimo : Arrays.binarySearch(distintos, valor);
+    }
+
+    private int[] permutar(int[] coluna, int[] ordem) {
+        int[] nova = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            nova[i] = coluna[ordem[i]];
+        }
+        return nova;
+    }
+
+    // depois de compactar() a capacidade pode ser 0 ou 1, e 1.5x disso não cresce
+    private int proximaCapacidade() {
+        return Math.max(capacidade + 1, (int) (capacidade * FATOR_CRESCIMENTO));
+    }
+
+    private void redimensionar(int novaCapacidade) {
+        anoEleicao = copiar(anoEleicao, novaCapacidade);
+        codCidade = copiar(codCidade, novaCapacidade);
+        nrZona = copiar(nrZona, novaCapacidade);
+        nrSecao = copiar(nrSecao, novaCapacidade);
+        nrLocalVotacao = copiar(nrLocalVotacao, novaCapacidade);
+        cdGenero = copiar(cdGenero, novaCapacidade);
+        cdEstadoCivil = copiar(cdEstadoCivil, novaCapacidade);
+        cdFaixaEtaria = copiar(cdFaixaEtaria, novaCapacidade);
+        cdGrauEscolaridade = copiar(cdGrauEscolaridade, novaCapacidade);
+        cdRacaCor = copiar(cdRacaCor, novaCapacidade);
+        cdIdentidadeGenero = copiar(cdIdentidadeGenero, novaCapacidade);
+        cdQuilombola = copiar(cdQuilombola, novaCapacidade);
+        cdInterpreteLibras = copiar(cdInterpreteLibras, novaCapacidade);
+        qtEleitoresPerfil = copiar(qtEleitoresPerfil, novaCapacidade);
+        qtEleitoresBiometria = copiar(qtEleitoresBiometria, novaCapacidade);
+        qtEleitoresDeficiencia = copiar(qtEleitoresDeficiencia, novaCapacidade);
+        qtEleitoresIncNmSocial = copiar(qtEleitoresIncNmSocial, novaCapacidade);
+
+        for (ColunaTexto coluna : colunasTexto()) {
+            coluna.codigos = copiar(coluna.codigos, novaCapacidade);
+        }
+
+        capacidade = novaCapacidade;
+    }
+
+    /**
+     * Estimativa de bytes de heap que a coluna deixa de reter por guardar
+     * cada valor distinto uma vez só, em vez de uma String por linha.
+     */
+    public long bytesEconomizados(ColunaTexto coluna) {
+        int[] ocorrencias = new int[coluna.dicionario.tamanho()];
+        int[] codigos = coluna.codigos;
+        for (int i = 0; i < tamanho; i++) {
+            ocorrencias[codigos[i]]++;
+        }
+
+        long total = 0;
+        for (int codigo = 0; codigo < ocorrencias.length; codigo++) {
+            if (ocorrencias[codigo] > 1) {
+                total += (ocorrencias[codigo] - 1) * Dicionario.tamanhoEstimado(coluna.dicionario.valor(codigo));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Retorna as colunas de texto (para estatísticas e serialização).
+     */
+    public ColunaTexto[] colunasTexto() {
+        return new ColunaTexto[]{
+            dtGeracao, hhGeracao, estado, nomeCidade, nmLocalVotacao,
+            dsGenero, dsEstadoCivil, dsFaixaEtaria, dsGrauEscolaridade, dsRacaCor,
+            dsIdentidadeGenero, dsQuilombola, dsInterpreteLibras, tpObrigatoriedadeVoto
+        };
+    }
+
+    private int[] copiar(int[] origem, int novaCapacidade) {
+        int[] novoArray = new int[novaCapacidade];
+        System.arraycopy(origem, 0, novoArray, 0, Math.min(tamanho, novaCapacidade));
+        return novoArray;
+    }
+}
@@ -0,0 +1,214 @@
+package unitins.br;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cópia dos registros de um ArmazemColunar fora do heap, com a API de
+ * memória externa (java.lang.foreign: Arena + MemorySegment).
+ *
+ * Cada linha tem largura fixa: os 17 campos numéricos e, para cada um dos
+ * 14 campos de texto, o código do valor no pool de strings (31 ints). Os
+ * campos ficam agrupados por coluna dentro de um único segmento (campo c
+ * da linha i no int c * linhas + i), porque as varreduras leem 2 ou 3
+ * campos de todas as linhas e assim percorrem memória contígua.
+ *
+ * Os textos distintos de cada campo ficam num pool (bytes UTF-8) também
+ * fora do heap; um diretório guarda início e tamanho de cada valor.
+ *
+ * Depois da cópia o ArmazemColunar pode liberar as colunas: no heap ficam
+ * os dicionários (usados para compilar as consultas) e os índices que o
+ * AppService monta nesse modo (faixas, catálogo de cidades e cubo), todos
+ * proporcionais aos valores distintos e às cidades/zonas/seções, não às
+ * linhas. A memória é liberada em close().
+ */
+public class ArmazemForaDoHeap implements AutoCloseable {
+
+    // ========== Campos (ordem de colunasNumericas() e colunasTexto()) ==========
+    public static final int ANO_ELEICAO = 0;
+    public static final int COD_CIDADE = 1;
+    public static final int NR_ZONA = 2;
+    public static final int NR_SECAO = 3;
+    public static final int NR_LOCAL_VOTACAO = 4;
+    public static final int CD_GENERO = 5;
+    public static final int CD_ESTADO_CIVIL = 6;
+    public static final int CD_FAIXA_ETARIA = 7;
+    public static final int CD_GRAU_ESCOLARIDADE = 8;
+    public static final int CD_RACA_COR = 9;
+    public static final int CD_IDENTIDADE_GENERO = 10;
+    public static final int CD_QUILOMBOLA = 11;
+    public static final int CD_INTERPRETE_LIBRAS = 12;
+    public static final int QT_ELEITORES_PERFIL = 13;
+    public static final int QT_ELEITORES_BIOMETRIA = 14;
+    public static final int QT_ELEITORES_DEFICIENCIA = 15;
+    public static final int QT_ELEITORES_INC_NM_SOCIAL = 16;
+
+    public static final int DT_GERACAO = 17;
+    public static final int HH_GERACAO = 18;
+    public static final int ESTADO = 19;
+    public static final int NOME_CIDADE = 20;
+    public static final int NM_LOCAL_VOTACAO = 21;
+    public static final int DS_GENERO = 22;
+    public static final int DS_ESTADO_CIVIL = 23;
+    public static final int DS_FAIXA_ETARIA = 24;
+    public static final int DS_GRAU_ESCOLARIDADE = 25;
+    public static final int DS_RACA_COR = 26;
+    public static final int DS_IDENTIDADE_GENERO = 27;
+    public static final int DS_QUILOMBOLA = 28;
+    public static final int DS_INTERPRETE_LIBRAS = 29;
+    public static final int TP_OBRIGATORIEDADE_VOTO = 30;
+
+    private static final int CAMPOS_NUMERICOS = 17;
+    private static final int CAMPOS = 31;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+
+    // compartilhada: o MotorVarredura e o verificador leem de outras threads
+    private final Arena arena = Arena.ofShared();
+
+    private final int linhas;
+    private final MemorySegment dados;        // CAMPOS colunas de "linhas" ints
+    private final MemorySegment[] colunas;    // fatias de "dados", uma por campo
+    private final MemorySegment pool;         // bytes UTF-8 dos valores distintos
+    private final MemorySegment diretorio;    // (início, tamanho) de cada valor no pool
+    private final int[] primeiraEntrada;      // entrada do código 0 de cada campo de texto
+
+    /**
+     * Copia as linhas do armazém (que ainda precisa ter as colunas).
+     */
+    public ArmazemForaDoHeap(ArmazemColunar origem) {
+        this.linhas = origem.tamanho();
+
+        int[][] numericas = origem.colunasNumericas();
+        ArmazemColunar.ColunaTexto[] textos = origem.colunasTexto();
+
+        long bytesColuna = 4L * linhas;
+        dados = arena.allocate(Math.max(1, bytesColuna * CAMPOS), 8);
+        colunas = new MemorySegment[CAMPOS];
+        for (int c = 0; c < CAMPOS; c++) {
+            colunas[c] = dados.asSlice(c * bytesColuna, bytesColuna);
+            int[] origemColuna = c < CAMPOS_NUMERICOS
+                    ? numericas[c]
+                    : textos[c - CAMPOS_NUMERICOS].codigos;
+            MemorySegment.copy(origemColuna, 0, colunas[c], INT, 0, linhas);
+        }
+
+        // pool de strings: todos os valores distintos de todos os campos de texto
+        primeiraEntrada = new int[textos.length];
+        int entradas = 0;
+        long bytesPool = 0;
+        for (int t = 0; t < textos.length; t++) {
+            primeiraEntrada[t] = entradas;
+            entradas += textos[t].dicionario.tamanho();
+        }
+        byte[][] valores = new byte[entradas][];
+        for (int t = 0; t < textos.length; t++) {
+            Dicionario dicionario = textos[t].dicionario;
+            for (int k = 0; k < dicionario.tamanho(); k++) {
+                byte[] bytes = dicionario.valor(k).getBytes(StandardCharsets.UTF_8);
+                valores[primeiraEntrada[t] + k] = bytes;
+                bytesPool += bytes.length;
+            }
+        }
+
+        pool = arena.allocate(Math.max(1, bytesPool), 1);
+        diretorio = arena.allocate(Math.max(1, 8L * entradas), 4);
+        long posicao = 0;
+        for (int e = 0; e < entradas; e++) {
+            MemorySegment.copy(valores[e], 0, pool, ValueLayout.JAVA_BYTE, posicao, valores[e].length);
+            diretorio.setAtIndex(INT, 2L * e, (int) posicao);
+            diretorio.setAtIndex(INT, 2L * e + 1, valores[e].length);
+            posicao += valores[e].length;
+        }
+    }
+
+    /**
+     * Quantidade de linhas.
+     */
+    public int tamanho() {
+        return linhas;
+    }
+
+    /**
+     * Valor de um campo (numérico, ou o código de um campo de texto).
+     */
+    public int valor(int campo, int linha) {
+        return colunas[campo].getAtIndex(INT, linha);
+    }
+
+    /**
+     * Segmento com os "linhas" ints de um campo (para as varreduras).
+     */
+    public MemorySegment coluna(int campo) {
+        return colunas[campo];
+    }
+
+    /**
+     * Texto de um campo de texto (DT_GERACAO ... TP_OBRIGATORIEDADE_VOTO), lido do pool.
+     */
+    public String texto(int campo, int linha) {
+        long entrada = primeiraEntrada[campo - CAMPOS_NUMERICOS] + (long) valor(campo, linha);
+        int inicio = diretorio.getAtIndex(INT, 2 * entrada);
+        int tamanho = diretorio.getAtIndex(INT, 2 * entrada + 1);
+
+        byte[] bytes = new byte[tamanho];
+        MemorySegment.copy(pool, ValueLayout.JAVA_BYTE, inicio, bytes, 0, tamanho);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Monta o PerfilEleitor de uma linha.
+     */
+    public PerfilEleitor materializar(int i) {
+        return new PerfilEleitor(
+            texto(DT_GERACAO, i),
+            texto(HH_GERACAO, i),
+            valor(ANO_ELEICAO, i),
+            texto(ESTADO, i),
+            valor(COD_CIDADE, i),
+            texto(NOME_CIDADE, i),
+            valor(NR_ZONA, i),
+            valor(NR_SECAO, i),
+            valor(NR_LOCAL_VOTACAO, i),
+            texto(NM_LOCAL_VOTACAO, i),
+            valor(CD_GENERO, i),
+            texto(DS_GENERO, i),
+            valor(CD_ESTADO_CIVIL, i),
+            texto(DS_ESTADO_CIVIL, i),
+            valor(CD_FAIXA_ETARIA, i),
+            texto(DS_FAIXA_ETARIA, i),
+            valor(CD_GRAU_ESCOLARIDADE, i),
+            texto(DS_GRAU_ESCOLARIDADE, i),
+            valor(CD_RACA_COR, i),
+            texto(DS_RACA_COR, i),
+            valor(CD_IDENTIDADE_GENERO, i),
+            texto(DS_IDENTIDADE_GENERO, i),
+            valor(CD_QUILOMBOLA, i),
+            texto(DS_QUILOMBOLA, i),
+            valor(CD_INTERPRETE_LIBRAS, i),
+            texto(DS_INTERPRETE_LIBRAS, i),
+            texto(TP_OBRIGATORIEDADE_VOTO, i),
+            valor(QT_ELEITORES_PERFIL, i),
+            valor(QT_ELEITORES_BIOMETRIA, i),
+            valor(QT_ELEITORES_DEFICIENCIA, i),
+            valor(QT_ELEITORES_INC_NM_SOCIAL, i)
+        );
+    }
+
+    /**
+     * Bytes alocados fora do heap (linhas + pool + diretório).
+     */
+    public long bytesForaDoHeap() {
+        return dados.byteSize() + pool.byteSize() + diretorio.byteSize();
+    }
+
+    /**
+     * Libera a memória. Acessos depois disso lançam IllegalStateException.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -29,7 +29,7 @@ public class Arquivo {
         System.out.println("\nBaixando arquivo do TSE...");
         System.out.println("URL: " + url);
 
-        long inicio = System.currentTimeMillis();
+        long inicio = Metricas.iniciar();
 
         try {
             // Criar cliente HTTP com redirecionamento automático
@@ -80,8 +80,8 @@ public class Arquivo {
                     }
                 }
 
-                long tempo = System.currentTimeMillis() - inicio;
-                Logger.registrar(String.format("Download concluído (%.2f MB)", totalBytes / 1048576.0), tempo);
+                long tempo = Metricas.emMs(Metricas.registrar(Metricas.DOWNLOAD, inicio));
+                Logger.registrar(tempo, "Download concluído (%.2f MB)", totalBytes / 1048576.0);
                 return true;
             }
 
@@ -101,7 +101,7 @@ public class Arquivo {
     public static boolean extrairZip(String arquivoZip, String destino) {
         System.out.println("\nExtraindo arquivo ZIP...");
 
-        long inicio = System.currentTimeMillis();
+        long inicio = Metricas.iniciar();
         
         // Adicionado para correção de segurança (Zip Slip)
         Path diretorioDestino = Paths.get(destino).toAbsolutePath();
@@ -148,7 +148,7 @@ public class Arquivo {
                     zis.closeEntry();
                 }
 
-                long tempo = System.currentTimeMillis() - inicio;
+                long tempo = Metricas.emMs(Metricas.registrar(Metricas.EXTRACAO_ZIP, inicio));
                 Logger.registrar("Extração do ZIP concluída", tempo);
                 return true;
             }
@@ -160,6 +160,178 @@ public class Arquivo {
         }
     }
 
+    /**
+     * Abre o download de uma URL como stream. Os bytes lidos do stream
+     * também são gravados em destino + ".tmp", então quem consome (ex: o
+     * leitor do CSV) processa os dados enquanto eles ainda estão chegando.
+     * O arquivo só vai para o destino quando o download termina inteiro;
+     * se der erro no meio, a cópia parcial é apagada.
+     *
+     * @param url URL do arquivo a ser baixado
+     * @param destino Caminho local onde a cópia do arquivo será salva
+     * @return Stream do conteúdo baixado (fechar para concluir a cópia)
+     */
+    public static InputStream abrirDownload(String url, String destino) throws IOException {
+        System.out.println("\nBaixando arquivo do TSE (processando durante o download)...");
+        System.out.println("URL: " + url);
+
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.ALWAYS)
+                    .build();
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .GET()
+                    .build();
+
+            HttpResponse<InputStream> response = client.send(request,
+                    HttpResponse.BodyHandlers.ofInputStream());
+
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Falha no download. Código HTTP: " + response.statusCode());
+            }
+
+            Path caminhoDestino = Paths.get(destino);
+            if (caminhoDestino.getParent() != null) {
+                Files.createDirectories(caminhoDestino.getParent());
+            }
+
+            Path temporario = Paths.get(destino + ".tmp");
+            OutputStream copia = new BufferedOutputStream(new FileOutputStream(temporario.toFile()), TAMANHO_BUFFER);
+            return new EntradaComCopia(new BufferedInputStream(response.body(), TAMANHO_BUFFER),
+                    copia, temporario, caminhoDestino);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrompido", e);
+        }
+    }
+
+    /**
+     * Posiciona um ZIP na primeira entrada .csv e devolve o stream
+     * descompactado dessa entrada (nada é extraído para o disco).
+     *
+     * @param zip Stream com o conteúdo do arquivo ZIP
+     * @return Stream da entrada CSV (fechar fecha também o ZIP)
+     */
+    public static ZipInputStream abrirCsvDoZip(InputStream zip) throws IOException {
+        ZipInputStream zis = new ZipInputStream(zip);
+        ZipEntry entry;
+
+        while ((entry = zis.getNextEntry()) != null) {
+            if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".csv")) {
+                return zis;
+            }
+            zis.closeEntry();
+        }
+
+        zis.close();
+        throw new IOException("Nenhum arquivo CSV encontrado no ZIP");
+    }
+
+    /**
+     * Stream que copia para um arquivo temporário tudo o que é lido.
+     * Ao fechar, o restante ainda não lido também é copiado e o temporário
+     * é movido para o destino; se a leitura falhou, ele é apagado.
+     */
+    private static class EntradaComCopia extends FilterInputStream {
+        private final OutputStream copia;
+        private final Path temporario;
+        private final Path destino;
+        private long totalBytes;
+        private long ultimoProgresso;
+        private boolean falhou;
+        private boolean fechado;
+
+        EntradaComCopia(InputStream entrada, OutputStream copia, Path temporario, Path destino) {
+            super(entrada);
+            this.copia = copia;
+            this.temporario = temporario;
+            this.destino = destino;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                int b = super.read();
+                if (b >= 0) {
+                    copia.write(b);
+                    contar(1);
+                }
+                return b;
+            } catch (IOException e) {
+                falhou = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                int lidos = super.read(b, off, len);
+                if (lidos > 0) {
+                    copia.write(b, off, lidos);
+                    contar(lidos);
+                }
+                return lidos;
+            } catch (IOException e) {
+                falhou = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // lê em vez de pular, para que a cópia fique completa
+            byte[] descarte = new byte[(int) Math.min(n, TAMANHO_BUFFER)];
+            int lidos = read(descarte, 0, descarte.length);
+            return Math.max(lidos, 0);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+
+            boolean salvo = false;
+            try {
+                if (!falhou) {
+                    // o ZIP pode não ter sido lido até o fim (diretório central)
+                    byte[] buffer = new byte[TAMANHO_BUFFER];
+                    while (read(buffer, 0, buffer.length) > 0) {
+                        // só copiando
+                    }
+                    copia.close();
+                    Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+                    salvo = true;
+                }
+            } finally {
+                try {
+                    copia.close();
+                    super.close();
+                } finally {
+                    if (!salvo) {
+                        // download incompleto: não deixa um ZIP truncado em dados/
+                        Files.deleteIfExists(temporario);
+                    }
+                }
+            }
+        }
+
+        private void contar(int bytes) {
+            totalBytes += bytes;
+            // Mostrar progresso a cada 10MB
+            if (totalBytes - ultimoProgresso >= 10485760) {
+                System.out.printf("  Baixado: %.1f MB%n", totalBytes / 1048576.0);
+                ultimoProgresso = totalBytes;
+            }
+        }
+    }
+
     /**
      * Verifica se um arquivo existe.
      *
@@ -184,6 +356,22 @@ public class Arquivo {
         }
     }
 
+    /**
+     * Apaga um arquivo, se existir.
+     *
+     * @param caminho Caminho do arquivo
+     * @return true se o arquivo não existe mais, false em caso de erro
+     */
+    public static boolean excluir(String caminho) {
+        try {
+            Files.deleteIfExists(Paths.get(caminho));
+            return true;
+        } catch (IOException e) {
+            Logger.erro("Não foi possível apagar " + caminho + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Cria um diretório se não existir.
      *
@@ -0,0 +1,220 @@
+package unitins.br;
+
+/**
+ * Árvore AVL (auto-balanceada) que implementa o TAD ArvoreBinariaADT.
+ *
+ * O arquivo do TSE vem praticamente ordenado por município, então na
+ * ArvoreBinaria comum as chaves entram em ordem crescente e a árvore vira
+ * uma lista ligada (altura ~ número de cidades). Aqui cada inserção
+ * reequilibra o caminho com rotações, mantendo a altura em O(log n).
+ */
+public class ArvoreAVL<T extends Comparable<T>> implements ArvoreBinariaADT<T> {
+
+    private No<T> raiz;
+    private int tamanho; // quantidade de nós
+    private int totalRegistros; // quantidade de registros armazenados
+
+    public ArvoreAVL() {
+        this.raiz = null;
+        this.tamanho = 0;
+        this.totalRegistros = 0;
+    }
+
+    @Override
+    public void inserir(T chave, int linha) {
+        raiz = inserirRecursivo(raiz, chave, linha);
+    }
+
+    // a recursão aqui é segura: a profundidade é limitada pela altura, que é O(log n)
+    private No<T> inserirRecursivo(No<T> atual, T chave, int linha) {
+
+        // caso base
+        if (atual == null) {
+            No<T> novo = new No<>(chave);
+            novo.novaLinha(linha);
+            tamanho++;
+            totalRegistros++;
+            return novo;
+        }
+
+        int cmp = chave.compareTo(atual.chave);
+
+        // chave igual = adiciona um registro (não muda a estrutura)
+        if (cmp == 0) {
+            atual.novaLinha(linha);
+            totalRegistros++;
+            return atual;
+        }
+
+        if (cmp < 0) {
+            atual.esquerda = inserirRecursivo(atual.esquerda, chave, linha);
+        } else {
+            atual.direita = inserirRecursivo(atual.direita, chave, linha);
+        }
+
+        return balancear(atual);
+    }
+
+    // ========== Balanceamento ==========
+
+    private int altura(No<T> no) {
+        return no == null ? 0 : no.altura;
+    }
+
+    private void atualizarAltura(No<T> no) {
+        no.altura = 1 + Math.max(altura(no.esquerda), altura(no.direita));
+    }
+
+    private int fatorBalanceamento(No<T> no) {
+        return altura(no.esquerda) - altura(no.direita);
+    }
+
+    private No<T> rotacaoDireita(No<T> y) {
+        No<T> x = y.esquerda;
+        y.esquerda = x.direita;
+        x.direita = y;
+
+        atualizarAltura(y);
+        atualizarAltura(x);
+        return x;
+    }
+
+    private No<T> rotacaoEsquerda(No<T> x) {
+        No<T> y = x.direita;
+        x.direita = y.esquerda;
+        y.esquerda = x;
+
+        atualizarAltura(x);
+        atualizarAltura(y);
+        return y;
+    }
+
+    private No<T> balancear(No<T> no) {
+        atualizarAltura(no);
+        int fator = fatorBalanceamento(no);
+
+        // pesado para a esquerda
+        if (fator > 1) {
+            if (fatorBalanceamento(no.esquerda) < 0) {
+                no.esquerda = rotacaoEsquerda(no.esquerda); // caso esquerda-direita
+            }
+            return rotacaoDireita(no);
+        }
+
+        // pesado para a direita
+        if (fator < -1) {
+            if (fatorBalanceamento(no.direita) > 0) {
+                no.direita = rotacaoDireita(no.direita); // caso direita-esquerda
+            }
+            return rotacaoEsquerda(no);
+        }
+
+        return no;
+    }
+
+    // ========== Consultas ==========
+
+    @Override
+    public int[] buscar(T chave) {
+        No<T> no = buscarNo(chave);
+
+        if (no == null) {
+            return null;
+        }
+
+        return no.linhasExatas();
+    }
+
+    @Override
+    public void compactar() {
+        // percurso com pilha explícita (a altura limita o tamanho da pilha)
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        No<T>[] pilha = (No<T>[]) new No[altura() + 1];
+        int topo = 0;
+        if (raiz != null) {
+            pilha[topo++] = raiz;
+        }
+        while (topo > 0) {
+            No<T> atual = pilha[--topo];
+            atual.compactar();
+            if (atual.esquerda != null) pilha[topo++] = atual.esquerda;
+            if (atual.direita != null) pilha[topo++] = atual.direita;
+        }
+    }
+
+    private No<T> buscarNo(T chave) {
+        No<T> atual = raiz;
+        int visitados = 0;
+
+        while (atual != null) {
+            visitados++;
+            int cmp = chave.compareTo(atual.chave);
+
+            if (cmp == 0) {
+                break;
+            }
+
+            atual = cmp < 0 ? atual.esquerda : atual.direita;
+        }
+
+        // um único incremento por busca (não um por nó)
+        Metricas.contar(Metricas.NOS_VISITADOS, visitados);
+        return atual;
+    }
+
+    @Override
+    public boolean contem(T chave) {
+        return buscarNo(chave) != null;
+    }
+
+    @Override
+    public int tamanho() {
+        return tamanho;
+    }
+
+    @Override
+    public int totalRegistros() {
+        return totalRegistros;
+    }
+
+    @Override
+    public boolean estaVazia() {
+        return raiz == null;
+    }
+
+    @Override
+    public int altura() {
+        // a altura já é mantida em cada nó durante a inserção
+        return altura(raiz);
+    }
+
+    @Override
+    public T[] emOrdem() {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        T[] lista = (T[]) new Comparable[tamanho];
+        index = 0;
+        preencherEmOrdem(raiz, lista);
+
+        return lista;
+    }
+
+    private int index = 0;
+
+    private void preencherEmOrdem(No<T> atual, T[] lista) {
+        if (atual == null) {
+            return;
+        }
+
+        preencherEmOrdem(atual.esquerda, lista);
+        lista[index++] = atual.chave;
+        preencherEmOrdem(atual.direita, lista);
+    }
+
+    @Override
+    public void limpar() {
+        raiz = null;
+        tamanho = 0;
+        totalRegistros = 0;
+    }
+
+}
@@ -5,79 +5,200 @@ public class ArvoreBinaria<T extends Comparable<T>> implements ArvoreBinariaADT<
     private No<T> raiz;
     private int tamanho; // quantidade de nós
     private int totalRegistros; // quantidade de registros armazenados
+    private int altura; // altura atual, atualizada a cada inserção
 
     public ArvoreBinaria() {
         this.raiz = null;
         this.tamanho = 0;
         this.totalRegistros = 0;
+        this.altura = 0;
     }
 
-    @Override
-    public void inserir(T chave, PerfilEleitor registro) {
-        raiz = inserirRecursivo(raiz, chave, registro);
+    /**
+     * Constrói uma árvore perfeitamente balanceada a partir de uma coluna
+     * int do armazém, sem chamar inserir() para cada linha.
+     *
+     * 1. Agrupa as linhas por chave com IndiceInteiro.construir (sobre int,
+     *    sem Integer nem HashMap por linha).
+     * 2. Converte para Integer só as chaves distintas, já ordenadas.
+     * 3. Monta a árvore pelo meio do vetor ordenado (altura mínima).
+     *
+     * @param colunaChave Coluna com a chave de cada linha (ex: codCidade)
+     * @param total Quantidade de linhas (0 .. total - 1)
+     * @return Árvore com altura ótima contendo todas as linhas
+     */
+    public static ArvoreBinaria<Integer> construirBalanceada(int[] colunaChave, int total) {
+        if (total <= 0) {
+            return new ArvoreBinaria<>();
+        }
+
+        IndiceInteiro agrupado = IndiceInteiro.construir(colunaChave, total);
+        int[] chaves = agrupado.chaves();
+        Integer[] chavesOrdenadas = new Integer[chaves.length];
+        int[][] grupos = new int[chaves.length][];
+        for (int i = 0; i < chaves.length; i++) {
+            chavesOrdenadas[i] = chaves[i];
+            grupos[i] = agrupado.grupo(i);
+        }
+
+        return construirDeGrupos(chavesOrdenadas, grupos);
     }
 
-    private No<T> inserirRecursivo(No<T> atual, T chave, PerfilEleitor registro) {
+    /**
+     * Constrói uma árvore perfeitamente balanceada a partir de registros já
+     * agrupados (ex: índice lido de um snapshot).
+     *
+     * @param chavesOrdenadas Chaves distintas em ordem crescente
+     * @param grupos grupos[i] = linhas da chave chavesOrdenadas[i] (tamanho exato)
+     * @return Árvore com altura ótima
+     */
+    public static <T extends Comparable<T>> ArvoreBinaria<T> construirDeGrupos(
+            T[] chavesOrdenadas, int[][] grupos) {
 
-        // caso base
-        if (atual == null) {
-            No<T> novo = new No<>(chave);
-            novo.novoRegistro(registro);
-            tamanho++;
-            totalRegistros++;
-            return novo;
+        ArvoreBinaria<T> arvore = new ArvoreBinaria<>();
+        int qtdGrupos = chavesOrdenadas.length;
+        if (qtdGrupos == 0) {
+            return arvore;
         }
-        
-        int cmp = chave.compareTo(atual.chave);
 
-        // chave igual = adiciona um registro
-        if (cmp == 0) {
-            atual.novoRegistro(registro);
-            totalRegistros++;
-            return atual;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        No<T>[] nos = (No<T>[]) new No[qtdGrupos];
+        int total = 0;
+        for (int i = 0; i < qtdGrupos; i++) {
+            nos[i] = new No<>(chavesOrdenadas[i], grupos[i]);
+            total += grupos[i].length;
         }
 
-        if (cmp < 0) {
-            atual.esquerda = inserirRecursivo(atual.esquerda, chave, registro);
-        } else {
-            atual.direita = inserirRecursivo(atual.direita, chave, registro);
+        arvore.raiz = montarBalanceada(nos, 0, qtdGrupos - 1);
+        arvore.tamanho = qtdGrupos;
+        arvore.totalRegistros = total;
+        arvore.altura = arvore.raiz.altura;
+
+        return arvore;
+    }
+
+    // a recursão tem profundidade log2(n), então é segura
+    private static <T extends Comparable<T>> No<T> montarBalanceada(No<T>[] nos, int inicio, int fim) {
+        if (inicio > fim) {
+            return null;
         }
 
-        return atual;
+        int meio = (inicio + fim) >>> 1;
+        No<T> no = nos[meio];
+        no.esquerda = montarBalanceada(nos, inicio, meio - 1);
+        no.direita = montarBalanceada(nos, meio + 1, fim);
+
+        int alturaEsquerda = no.esquerda == null ? 0 : no.esquerda.altura;
+        int alturaDireita = no.direita == null ? 0 : no.direita.altura;
+        no.altura = 1 + Math.max(alturaEsquerda, alturaDireita);
+
+        return no;
     }
 
     @Override
-    public PerfilEleitor[] buscar(T chave) {
-        No<T> no = buscarNo(raiz, chave);
+    public void inserir(T chave, int linha) {
 
-        if (no == null) {
-            return null;
+        // árvore vazia
+        if (raiz == null) {
+            raiz = new No<>(chave);
+            raiz.novaLinha(linha);
+            tamanho++;
+            totalRegistros++;
+            altura = 1;
+            return;
         }
 
-        return no.registros;
+        // desce iterativamente até achar a chave ou a posição de inserção
+        No<T> atual = raiz;
+        int nivel = 1;
+
+        while (true) {
+            int cmp = chave.compareTo(atual.chave);
+
+            // chave igual = adiciona um registro
+            if (cmp == 0) {
+                atual.novaLinha(linha);
+                totalRegistros++;
+                return;
+            }
+
+            No<T> proximo = cmp < 0 ? atual.esquerda : atual.direita;
+
+            if (proximo == null) {
+                No<T> novo = new No<>(chave);
+                novo.novaLinha(linha);
+
+                if (cmp < 0) {
+                    atual.esquerda = novo;
+                } else {
+                    atual.direita = novo;
+                }
+
+                tamanho++;
+                totalRegistros++;
+                // a altura só pode crescer no caminho da inserção
+                if (nivel + 1 > altura) {
+                    altura = nivel + 1;
+                }
+                return;
+            }
+
+            atual = proximo;
+            nivel++;
+        }
     }
 
-    private No<T> buscarNo(No<T> atual, T chave) {
-        if (atual == null) {
+    @Override
+    public int[] buscar(T chave) {
+        No<T> no = buscarNo(chave);
+
+        if (no == null) {
             return null;
         }
 
-        int cmp = chave.compareTo(atual.chave);
+        return no.linhasExatas();
+    }
 
-        if (cmp == 0) {
-            return atual;
+    @Override
+    public void compactar() {
+        // percurso com pilha explícita (a altura limita o tamanho da pilha)
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        No<T>[] pilha = (No<T>[]) new No[altura() + 1];
+        int topo = 0;
+        if (raiz != null) {
+            pilha[topo++] = raiz;
+        }
+        while (topo > 0) {
+            No<T> atual = pilha[--topo];
+            atual.compactar();
+            if (atual.esquerda != null) pilha[topo++] = atual.esquerda;
+            if (atual.direita != null) pilha[topo++] = atual.direita;
         }
+    }
+
+    private No<T> buscarNo(T chave) {
+        No<T> atual = raiz;
+        int visitados = 0;
+
+        while (atual != null) {
+            visitados++;
+            int cmp = chave.compareTo(atual.chave);
 
-        if (cmp < 0) {
-            return buscarNo(atual.esquerda, chave);
+            if (cmp == 0) {
+                break;
+            }
+
+            atual = cmp < 0 ? atual.esquerda : atual.direita;
         }
 
-        return buscarNo(atual.direita, chave);
+        // um único incremento por busca (não um por nó)
+        Metricas.contar(Metricas.NOS_VISITADOS, visitados);
+        return atual;
     }
 
     @Override
     public boolean contem(T chave) {
-        return buscarNo(raiz, chave) != null;
+        return buscarNo(chave) != null;
     }
 
     @Override
@@ -97,40 +218,34 @@ public class ArvoreBinaria<T extends Comparable<T>> implements ArvoreBinariaADT<
 
     @Override
     public int altura() {
-        return alturaRecursiva(raiz);
-    }
-
-    private int alturaRecursiva(No<T> atual) {
-        if (atual == null) {
-            return 0;
-        }
-
-        int alturaEsquerda = alturaRecursiva(atual.esquerda);
-        int alturaDireita = alturaRecursiva(atual.direita);
-
-        return 1 + Math.max(alturaEsquerda, alturaDireita);
+        // mantida durante a inserção, sem percorrer a árvore
+        return altura;
     }
 
     @Override
     public T[] emOrdem() {
-        @SuppressWarnings("unchecked")
+        @SuppressWarnings({"unchecked", "rawtypes"})
         T[] lista = (T[]) new Comparable[tamanho];
-        index = 0;
-        preencherEmOrdem(raiz, lista);
-        
-        return lista;
-    }
 
-    private int index = 0;
+        // percurso em ordem com pilha explícita (a pilha nunca passa da altura)
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        No<T>[] pilha = (No<T>[]) new No[altura];
+        int topo = 0;
+        int index = 0;
+        No<T> atual = raiz;
 
-    private void preencherEmOrdem(No<T> atual, T[] lista) {
-        if (atual == null) {
-            return;
+        while (atual != null || topo > 0) {
+            while (atual != null) {
+                pilha[topo++] = atual;
+                atual = atual.esquerda;
+            }
+
+            atual = pilha[--topo];
+            lista[index++] = atual.chave;
+            atual = atual.direita;
         }
 
-        preencherEmOrdem(atual.esquerda, lista);
-        lista[index++] = atual.chave;
-        preencherEmOrdem(atual.direita, lista);
+        return lista;
     }
 
     @Override
@@ -138,6 +253,7 @@ public class ArvoreBinaria<T extends Comparable<T>> implements ArvoreBinariaADT<
         raiz = null;
         tamanho = 0;
         totalRegistros = 0;
+        altura = 0;
     }
     
 }
\ No newline at end of file
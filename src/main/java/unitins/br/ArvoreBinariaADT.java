@@ -16,18 +16,28 @@ public interface ArvoreBinariaADT<T extends Comparable<T>> {
     /**
      * Insere um registro de eleitor na árvore.
      *
+     * Os nós guardam só a linha do registro no armazém colunar (um int),
+     * não uma cópia do registro.
+     *
      * @param chave Chave de busca (ex: código da cidade, número da zona)
-     * @param registro Registro do perfil do eleitor a ser inserido
+     * @param linha Linha do registro no armazém
      */
-    void inserir(T chave, PerfilEleitor registro);
+    void inserir(T chave, int linha);
 
     /**
-     * Busca todos os registros associados a uma chave.
+     * Busca as linhas de todos os registros associados a uma chave.
      *
      * @param chave Chave de busca
-     * @return Array de registros encontrados, ou array vazio se não encontrar
+     * @return Linhas encontradas (array com o tamanho exato, não alterar),
+     *         ou null se não encontrar
+     */
+    int[] buscar(T chave);
+
+    /**
+     * Corta a sobra dos arrays de linhas dos nós. Chamar ao final da carga:
+     * depois disso buscar() devolve o próprio array do nó, sem cópia.
      */
-    PerfilEleitor[] buscar(T chave);
+    void compactar();
 
     /**
      * Verifica se a árvore contém uma determinada chave.
@@ -0,0 +1,383 @@
+package unitins.br;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+/**
+ * Conjunto de inteiros não negativos (ids de linha) compactado no estilo
+ * "roaring bitmap".
+ *
+ * Os valores são divididos em blocos de 65.536 pelos 16 bits altos. Cada
+ * bloco guarda os 16 bits baixos em um de dois formatos:
+ *   - array ordenado de char, quando tem até 4.096 valores (esparso);
+ *   - bitmap de 1.024 longs (65.536 bits), quando tem mais (denso).
+ *
+ * Interseção (e) e união (ou) trabalham bloco a bloco, palavra a palavra
+ * nos bitmaps, sem avaliar predicado por linha.
+ *
+ * O conjunto só aceita adicionar() durante a construção: depois de
+ * compactar(), e nos resultados de e()/ou() (que podem dividir blocos com
+ * os conjuntos de entrada), ele fica imutável.
+ */
+public class BitmapCompactado {
+
+    // Acima disso o bloco vira bitmap (4096 chars = 8 KB = tamanho do bitmap)
+    private static final int LIMITE_ARRAY = 4096;
+    private static final int PALAVRAS_BITMAP = 1024;
+
+    private char[] chaves;          // 16 bits altos de cada bloco, em ordem crescente
+    private Object[] blocos;        // char[] (array) ou long[] (bitmap)
+    private int[] cardinalidades;   // quantidade de valores de cada bloco
+    private int qtdBlocos;
+    private boolean imutavel;       // true depois de compactar() e nos resultados de e/ou
+
+    public BitmapCompactado() {
+        this.chaves = new char[4];
+        this.blocos = new Object[4];
+        this.cardinalidades = new int[4];
+        this.qtdBlocos = 0;
+    }
+
+    /**
+     * Adiciona um valor. Os valores devem ser adicionados em ordem crescente
+     * (como ao percorrer as linhas do armazém).
+     *
+     * @throws IllegalStateException se o conjunto já foi compactado ou é
+     *         resultado de e/ou (os blocos podem ser de outro conjunto)
+     */
+    public void adicionar(int valor) {
+        if (imutavel) {
+            throw new IllegalStateException("Conjunto imutável: compactado ou resultado de e/ou");
+        }
+        char chave = (char) (valor >>> 16);
+        char baixo = (char) valor;
+
+        if (qtdBlocos == 0 || chaves[qtdBlocos - 1] != chave) {
+            if (qtdBlocos > 0 && chaves[qtdBlocos - 1] > chave) {
+                throw new IllegalArgumentException("Valores devem ser adicionados em ordem crescente");
+            }
+            novoBloco(chave, new char[16], 0);
+        }
+
+        int b = qtdBlocos - 1;
+        int card = cardinalidades[b];
+
+        if (blocos[b] instanceof char[]) {
+            char[] array = (char[]) blocos[b];
+            if (card > 0 && array[card - 1] >= baixo) {
+                if (array[card - 1] == baixo) return;
+                throw new IllegalArgumentException("Valores devem ser adicionados em ordem crescente");
+            }
+
+            if (card == LIMITE_ARRAY) {
+                long[] bitmap = paraBitmap(array, card);
+                bitmap[baixo >>> 6] |= 1L << baixo;
+                blocos[b] = bitmap;
+            } else {
+                if (card == array.length) {
+                    char[] maior = new char[Math.min(array.length * 2, LIMITE_ARRAY)];
+                    System.arraycopy(array, 0, maior, 0, card);
+                    array = maior;
+                    blocos[b] = array;
+                }
+                array[card] = baixo;
+            }
+        } else {
+            long[] bitmap = (long[]) blocos[b];
+            long bit = 1L << baixo;
+            if ((bitmap[baixo >>> 6] & bit) != 0) return;
+            bitmap[baixo >>> 6] |= bit;
+        }
+
+        cardinalidades[b] = card + 1;
+    }
+
+    /**
+     * Reduz os arrays internos ao tamanho exato e encerra a construção
+     * (adicionar() deixa de ser aceito).
+     */
+    public void compactar() {
+        for (int b = 0; b < qtdBlocos; b++) {
+            if (blocos[b] instanceof char[]) {
+                char[] array = (char[]) blocos[b];
+                if (array.length > cardinalidades[b]) {
+                    char[] exato = new char[cardinalidades[b]];
+                    System.arraycopy(array, 0, exato, 0, exato.length);
+                    blocos[b] = exato;
+                }
+            }
+        }
+
+        chaves = Arrays.copyOf(chaves, qtdBlocos);
+        blocos = Arrays.copyOf(blocos, qtdBlocos);
+        cardinalidades = Arrays.copyOf(cardinalidades, qtdBlocos);
+        imutavel = true;
+    }
+
+    /**
+     * Quantidade de valores do conjunto.
+     */
+    public long cardinalidade() {
+        long total = 0;
+        for (int b = 0; b < qtdBlocos; b++) {
+            total += cardinalidades[b];
+        }
+        return total;
+    }
+
+    /**
+     * Estimativa de bytes de heap ocupados pelos blocos e arrays internos.
+     */
+    public long bytesEstimados() {
+        long total = 16 + 2L * chaves.length + 16 + 4L * blocos.length + 16 + 4L * cardinalidades.length;
+        for (int b = 0; b < qtdBlocos; b++) {
+            if (blocos[b] instanceof char[]) {
+                total += 16 + 2L * ((char[]) blocos[b]).length;
+            } else {
+                total += 16 + 8L * ((long[]) blocos[b]).length;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Soma coluna[linha] para cada linha do conjunto.
+     */
+    public long somar(int[] coluna) {
+        long total = 0;
+
+        for (int b = 0; b < qtdBlocos; b++) {
+            int base = chaves[b] << 16;
+
+            if (blocos[b] instanceof char[]) {
+                char[] array = (char[]) blocos[b];
+                for (int i = 0; i < cardinalidades[b]; i++) {
+                    total += coluna[base | array[i]];
+                }
+            } else {
+                long[] bitmap = (long[]) blocos[b];
+                for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                    long palavra = bitmap[w];
+                    while (palavra != 0) {
+                        int bit = Long.numberOfTrailingZeros(palavra);
+                        total += coluna[base | (w << 6) | bit];
+                        palavra &= palavra - 1;
+                    }
+                }
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Soma os ints de uma coluna fora do heap para cada linha do conjunto.
+     */
+    public long somar(MemorySegment coluna) {
+        long total = 0;
+
+        for (int b = 0; b < qtdBlocos; b++) {
+            int base = chaves[b] << 16;
+
+            if (blocos[b] instanceof char[]) {
+                char[] array = (char[]) blocos[b];
+                for (int i = 0; i < cardinalidades[b]; i++) {
+                    total += coluna.getAtIndex(ValueLayout.JAVA_INT, base | array[i]);
+                }
+            } else {
+                long[] bitmap = (long[]) blocos[b];
+                for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                    long palavra = bitmap[w];
+                    while (palavra != 0) {
+                        int bit = Long.numberOfTrailingZeros(palavra);
+                        total += coluna.getAtIndex(ValueLayout.JAVA_INT, base | (w << 6) | bit);
+                        palavra &= palavra - 1;
+                    }
+                }
+            }
+        }
+
+        return total;
+    }
+
+    // ========== Operações de conjunto ==========
+
+    /**
+     * Interseção (AND) de dois conjuntos.
+     */
+    public static BitmapCompactado e(BitmapCompactado a, BitmapCompactado b) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+
+        while (i < a.qtdBlocos && j < b.qtdBlocos) {
+            if (a.chaves[i] < b.chaves[j]) {
+                i++;
+            } else if (a.chaves[i] > b.chaves[j]) {
+                j++;
+            } else {
+                Object bloco = interseccao(a.blocos[i], a.cardinalidades[i], b.blocos[j], b.cardinalidades[j]);
+                int card = cardinalidadeBloco(bloco);
+                if (card > 0) {
+                    resultado.novoBloco(a.chaves[i], bloco, card);
+                }
+                i++;
+                j++;
+            }
+        }
+
+        resultado.imutavel = true;
+        return resultado;
+    }
+
+    /**
+     * União (OR) de dois conjuntos.
+     */
+    public static BitmapCompactado ou(BitmapCompactado a, BitmapCompactado b) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+
+        while (i < a.qtdBlocos || j < b.qtdBlocos) {
+            if (j >= b.qtdBlocos || (i < a.qtdBlocos && a.chaves[i] < b.chaves[j])) {
+                resultado.novoBloco(a.chaves[i], a.blocos[i], a.cardinalidades[i]);
+                i++;
+            } else if (i >= a.qtdBlocos || a.chaves[i] > b.chaves[j]) {
+                resultado.novoBloco(b.chaves[j], b.blocos[j], b.cardinalidades[j]);
+                j++;
+            } else {
+                Object bloco = uniao(a.blocos[i], a.cardinalidades[i], b.blocos[j], b.cardinalidades[j]);
+                resultado.novoBloco(a.chaves[i], bloco, cardinalidadeBloco(bloco));
+                i++;
+                j++;
+            }
+        }
+
+        resultado.imutavel = true;
+        return resultado;
+    }
+
+    // Os blocos podem ser compartilhados entre conjuntos (ou() reaproveita
+    // blocos sem copiar), então nenhuma operação altera um bloco existente.
+
+    private static Object interseccao(Object x, int cardX, Object y, int cardY) {
+        if (x instanceof char[] && y instanceof char[]) {
+            char[] a = (char[]) x;
+            char[] b = (char[]) y;
+            char[] saida = new char[Math.min(cardX, cardY)];
+            int i = 0, j = 0, k = 0;
+            while (i < cardX && j < cardY) {
+                if (a[i] < b[j]) i++;
+                else if (a[i] > b[j]) j++;
+                else { saida[k++] = a[i]; i++; j++; }
+            }
+            return Arrays.copyOf(saida, k);
+        }
+
+        if (x instanceof long[] && y instanceof long[]) {
+            long[] a = (long[]) x;
+            long[] b = (long[]) y;
+            long[] saida = new long[PALAVRAS_BITMAP];
+            int card = 0;
+            for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                saida[w] = a[w] & b[w];
+                card += Long.bitCount(saida[w]);
+            }
+            return card <= LIMITE_ARRAY ? paraArray(saida, card) : saida;
+        }
+
+        // array com bitmap: filtra o array
+        char[] array = (char[]) (x instanceof char[] ? x : y);
+        int cardArray = x instanceof char[] ? cardX : cardY;
+        long[] bitmap = (long[]) (x instanceof long[] ? x : y);
+        char[] saida = new char[cardArray];
+        int k = 0;
+        for (int i = 0; i < cardArray; i++) {
+            char v = array[i];
+            if ((bitmap[v >>> 6] & (1L << v)) != 0) {
+                saida[k++] = v;
+            }
+        }
+        return Arrays.copyOf(saida, k);
+    }
+
+    private static Object uniao(Object x, int cardX, Object y, int cardY) {
+        if (x instanceof char[] && y instanceof char[] && cardX + cardY <= LIMITE_ARRAY) {
+            char[] a = (char[]) x;
+            char[] b = (char[]) y;
+            char[] saida = new char[cardX + cardY];
+            int i = 0, j = 0, k = 0;
+            while (i < cardX || j < cardY) {
+                if (j >= cardY || (i < cardX && a[i] < b[j])) saida[k++] = a[i++];
+                else if (i >= cardX || a[i] > b[j]) saida[k++] = b[j++];
+                else { saida[k++] = a[i]; i++; j++; }
+            }
+            return Arrays.copyOf(saida, k);
+        }
+
+        long[] saida = x instanceof long[] ? ((long[]) x).clone() : paraBitmap((char[]) x, cardX);
+        if (y instanceof long[]) {
+            long[] b = (long[]) y;
+            for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+                saida[w] |= b[w];
+            }
+        } else {
+            char[] b = (char[]) y;
+            for (int i = 0; i < cardY; i++) {
+                saida[b[i] >>> 6] |= 1L << b[i];
+            }
+        }
+
+        int card = 0;
+        for (long palavra : saida) {
+            card += Long.bitCount(palavra);
+        }
+        return card <= LIMITE_ARRAY ? paraArray(saida, card) : saida;
+    }
+
+    private static int cardinalidadeBloco(Object bloco) {
+        if (bloco instanceof char[]) {
+            return ((char[]) bloco).length;
+        }
+        int card = 0;
+        for (long palavra : (long[]) bloco) {
+            card += Long.bitCount(palavra);
+        }
+        return card;
+    }
+
+    private static long[] paraBitmap(char[] array, int card) {
+        long[] bitmap = new long[PALAVRAS_BITMAP];
+        for (int i = 0; i < card; i++) {
+            bitmap[array[i] >>> 6] |= 1L << array[i];
+        }
+        return bitmap;
+    }
+
+    private static char[] paraArray(long[] bitmap, int card) {
+        char[] array = new char[card];
+        int k = 0;
+        for (int w = 0; w < PALAVRAS_BITMAP; w++) {
+            long palavra = bitmap[w];
+            while (palavra != 0) {
+                array[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(palavra));
+                palavra &= palavra - 1;
+            }
+        }
+        return array;
+    }
+
+    private void novoBloco(char chave, Object bloco, int card) {
+        if (qtdBlocos == chaves.length) {
+            int novo = Math.max(4, qtdBlocos * 2);
+            chaves = Arrays.copyOf(chaves, novo);
+            blocos = Arrays.copyOf(blocos, novo);
+            cardinalidades = Arrays.copyOf(cardinalidades, novo);
+        }
+        chaves[qtdBlocos] = chave;
+        blocos[qtdBlocos] = bloco;
+        cardinalidades[qtdBlocos] = card;
+        qtdBlocos++;
+    }
+}
@@ -0,0 +1,129 @@
+package unitins.br;
+
+import java.util.Arrays;
+
+/**
+ * Catálogo das cidades do estado carregado: código, nome, quantidade de
+ * registros e total de eleitores.
+ *
+ * É montado uma vez na carga, a partir do índice por cidade (que já tem
+ * as cidades em ordem e as linhas de cada uma), e depois a listagem do
+ * menu sai direto dos vetores, em O(cidades), sem limite de quantidade.
+ */
+public class CatalogoCidades {
+
+    private final int[] codigos;      // em ordem crescente
+    private final String[] nomes;
+    private final int[] registros;
+    private final long[] eleitores;
+
+    private CatalogoCidades(int qtd) {
+        codigos = new int[qtd];
+        nomes = new String[qtd];
+        registros = new int[qtd];
+        eleitores = new long[qtd];
+    }
+
+    /**
+     * Monta o catálogo a partir das linhas de cada cidade (IndiceInteiro,
+     * árvore por cidade ou snapshot).
+     *
+     * @param codigosOrdenados Códigos das cidades em ordem crescente
+     * @param linhasPorCidade linhasPorCidade[i] = linhas da cidade codigosOrdenados[i]
+     */
+    public static CatalogoCidades deGrupos(ArmazemColunar armazem, int[] codigosOrdenados,
+                                           int[][] linhasPorCidade) {
+        CatalogoCidades catalogo = new CatalogoCidades(codigosOrdenados.length);
+        int[] qtEleitores = armazem.qtEleitoresPerfil;
+
+        for (int c = 0; c < codigosOrdenados.length; c++) {
+            int[] linhas = linhasPorCidade[c];
+            long total = 0;
+            for (int linha : linhas) {
+                total += qtEleitores[linha];
+            }
+            // o nome é o da primeira linha da cidade (ordem do arquivo)
+            catalogo.preencher(c, codigosOrdenados[c],
+                    linhas.length > 0 ? armazem.nomeCidade.valor(linhas[0]) : "",
+                    linhas.length, total);
+        }
+        return catalogo;
+    }
+
+    /**
+     * Monta o catálogo a partir das faixas de um armazém agrupado.
+     */
+    public static CatalogoCidades deFaixas(ArmazemColunar armazem, IndiceFaixas faixas) {
+        int[] cidades = faixas.cidades();
+        CatalogoCidades catalogo = new CatalogoCidades(cidades.length);
+        int[] qtEleitores = armazem.qtEleitoresPerfil;
+
+        for (int c = 0; c < cidades.length; c++) {
+            long faixa = faixas.faixaCidade(cidades[c]);
+            int inicio = IndiceFaixas.inicio(faixa);
+            int fim = IndiceFaixas.fim(faixa);
+            long total = 0;
+            for (int i = inicio; i < fim; i++) {
+                total += qtEleitores[i];
+            }
+            catalogo.preencher(c, cidades[c], armazem.nomeCidade.valor(inicio), fim - inicio, total);
+        }
+        return catalogo;
+    }
+
+    private void preencher(int c, int codigo, String nome, int qtdRegistros, long totalEleitores) {
+        codigos[c] = codigo;
+        nomes[c] = nome;
+        registros[c] = qtdRegistros;
+        eleitores[c] = totalEleitores;
+    }
+
+    /**
+     * Quantidade de cidades.
+     */
+    public int tamanho() {
+        return codigos.length;
+    }
+
+    public int codigo(int i) {
+        return codigos[i];
+    }
+
+    public String nome(int i) {
+        return nomes[i];
+    }
+
+    public int registros(int i) {
+        return registros[i];
+    }
+
+    public long eleitores(int i) {
+        return eleitores[i];
+    }
+
+    /**
+     * Posição da cidade no catálogo, ou -1 se não existir.
+     */
+    public int posicao(int codigo) {
+        int pos = Arrays.binarySearch(codigos, codigo);
+        return pos < 0 ? -1 : pos;
+    }
+
+    /**
+     * [código, nome] de cada cidade, em ordem de código.
+     */
+    public String[][] comoTabela() {
+        String[][] tabela = new String[codigos.length][];
+        for (int i = 0; i < codigos.length; i++) {
+            tabela[i] = new String[]{String.valueOf(codigos[i]), nomes[i]};
+        }
+        return tabela;
+    }
+
+    /**
+     * Bytes aproximados (os nomes são as Strings do dicionário, já contadas no armazém).
+     */
+    public long bytesEstimados() {
+        return codigos.length * (4L + 4L + 4L + 8L);
+    }
+}
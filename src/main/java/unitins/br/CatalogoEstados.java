@@ -0,0 +1,169 @@
+package unitins.br;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catálogo dos estados mantidos em memória (registros + índices), para
+ * trocar de estado sem recarregar.
+ *
+ * Os estados ficam num LinkedHashMap em ordem de acesso: o primeiro é o
+ * usado há mais tempo. Cada estado tem o tamanho estimado na entrada e,
+ * quando a soma passa do orçamento, os menos usados saem do catálogo
+ * (LRU). O estado acessado por último nunca é descartado, mesmo que
+ * sozinho passe do orçamento.
+ */
+public class CatalogoEstados {
+
+    // a linha (int) do registro no índice por cidade e nos níveis de zona,
+    // seção e local do índice composto
+    private static final long BYTES_POR_REGISTRO_INDEXADO = 4 * 4;
+
+    /**
+     * Um estado carregado: armazém e índices montados sobre ele.
+     */
+    public static class Estado {
+        final String uf;
+        final ArmazemColunar armazem;
+        final ArmazemForaDoHeap armazemForaDoHeap;   // null = colunas no heap
+        final ArvoreBinariaADT<Integer> arvorePorCidade;
+        final IndiceInteiro indicePorCidade;
+        final IndiceFaixas indiceFaixas;
+        final CatalogoCidades catalogoCidades;
+        final IndiceHierarquico indiceHierarquico;
+        final CuboAgregado cubo;
+        final IndiceBitmap indiceBitmap;
+        final long bytesEstimados;
+
+        Estado(String uf, ArmazemColunar armazem, ArmazemForaDoHeap armazemForaDoHeap,
+               ArvoreBinariaADT<Integer> arvorePorCidade, IndiceInteiro indicePorCidade,
+               IndiceFaixas indiceFaixas, CatalogoCidades catalogoCidades,
+               IndiceHierarquico indiceHierarquico,
+               CuboAgregado cubo, IndiceBitmap indiceBitmap) {
+            this.uf = uf;
+            this.armazem = armazem;
+            this.armazemForaDoHeap = armazemForaDoHeap;
+            this.arvorePorCidade = arvorePorCidade;
+            this.indicePorCidade = indicePorCidade;
+            this.indiceFaixas = indiceFaixas;
+            this.catalogoCidades = catalogoCidades;
+            this.indiceHierarquico = indiceHierarquico;
+            this.cubo = cubo;
+            this.indiceBitmap = indiceBitmap;
+            int registrosIndexados = indicePorCidade != null ? indicePorCidade.totalRegistros()
+                    : arvorePorCidade != null ? arvorePorCidade.totalRegistros() : 0;
+            long bytes = estimarBytes(armazem, registrosIndexados, cubo, indiceBitmap);
+            if (indiceFaixas != null) {
+                bytes += indiceFaixas.bytesEstimados();
+            }
+            if (catalogoCidades != null) {
+                bytes += catalogoCidades.bytesEstimados();
+            }
+            if (armazemForaDoHeap != null) {
+                // fora do heap, mas é memória do processo do mesmo jeito
+                bytes += armazemForaDoHeap.bytesForaDoHeap();
+            }
+            this.bytesEstimados = bytes;
+        }
+
+        public String uf() {
+            return uf;
+        }
+
+        public long bytesEstimados() {
+            return bytesEstimados;
+        }
+    }
+
+    // accessOrder = true: get() move o estado para o fim (mais recente)
+    private final LinkedHashMap<String, Estado> estados = new LinkedHashMap<>(32, 0.75f, true);
+
+    private long orcamentoBytes;
+    private long bytesEmUso;
+
+    /**
+     * @param orcamentoBytes Soma máxima dos tamanhos estimados dos estados
+     */
+    public CatalogoEstados(long orcamentoBytes) {
+        this.orcamentoBytes = orcamentoBytes;
+    }
+
+    /**
+     * Retorna o estado, se estiver no catálogo, e o marca como o mais recente.
+     */
+    public Estado obter(String uf) {
+        return estados.get(uf);
+    }
+
+    /**
+     * Adiciona (ou substitui) o estado como o mais recente e descarta os
+     * menos usados até caber no orçamento.
+     *
+     * @return Estados descartados, do menos para o mais recente
+     */
+    public List<Estado> adicionar(Estado estado) {
+        Estado anterior = estados.remove(estado.uf);
+        if (anterior != null) {
+            bytesEmUso -= anterior.bytesEstimados;
+        }
+        estados.put(estado.uf, estado);
+        bytesEmUso += estado.bytesEstimados;
+        return descartarExcedente();
+    }
+
+    /**
+     * Muda o orçamento e descarta o que passar dele.
+     *
+     * @return Estados descartados
+     */
+    public List<Estado> setOrcamentoBytes(long orcamentoBytes) {
+        this.orcamentoBytes = orcamentoBytes;
+        return descartarExcedente();
+    }
+
+    public long getOrcamentoBytes() {
+        return orcamentoBytes;
+    }
+
+    public long bytesEmUso() {
+        return bytesEmUso;
+    }
+
+    /**
+     * Siglas dos estados em memória, do menos para o mais recente.
+     */
+    public String[] estados() {
+        return estados.keySet().toArray(new String[0]);
+    }
+
+    private List<Estado> descartarExcedente() {
+        List<Estado> removidos = new ArrayList<>();
+        Iterator<Map.Entry<String, Estado>> it = estados.entrySet().iterator();
+        while (bytesEmUso > orcamentoBytes && estados.size() > 1) {
+            Estado maisAntigo = it.next().getValue();
+            it.remove();
+            bytesEmUso -= maisAntigo.bytesEstimados;
+            removidos.add(maisAntigo);
+        }
+        return removidos;
+    }
+
+    /**
+     * Tamanho estimado (bytes de heap) de um estado carregado.
+     */
+    static long estimarBytes(ArmazemColunar armazem, int registrosIndexados,
+                             CuboAgregado cubo, IndiceBitmap indiceBitmap) {
+        long total = armazem.bytesEstimados();
+        total += BYTES_POR_REGISTRO_INDEXADO * registrosIndexados;
+        if (cubo != null) {
+            total += cubo.bytesCelulas();
+        }
+        if (indiceBitmap != null) {
+            total += indiceBitmap.bytesEstimados();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,394 @@
+package unitins.br;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Plano de uma consulta de calcularEleitores.
+ *
+ * Os filtros chegam como Strings ("CIDADE", "FAIXA_ETARIA", "3"...). Em vez
+ * de fazer o switch e o parse desses textos a cada registro, a consulta é
+ * resolvida uma vez só em campos primitivos:
+ *
+ *   - abrangência: quais colunas comparar (cidade, zona, seção/local) e com
+ *     quais valores;
+ *   - perfil: qual coluna olhar e uma tabela boolean dos valores aceitos;
+ *   - medida: qual coluna somar (eleitores, biometria ou deficiência).
+ *
+ * O laço de soma fica sem switch, sem parse e sem alocação.
+ */
+public final class ConsultaCompilada {
+
+    // Abrangências
+    private static final int ESTADO = 0;
+    private static final int CIDADE = 1;
+    private static final int LOCAL = 2;
+    private static final int SECAO = 3;
+
+    // Medidas somadas
+    private static final int ELEITORES = 0;
+    private static final int BIOMETRIA = 1;
+    private static final int DEFICIENCIA = 2;
+
+    /** Opção de menu inválida (nenhum código do TSE é igual a ele). */
+    public static final int SEM_CODIGO = Integer.MIN_VALUE;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+
+    // Códigos das faixas etárias conforme padrão do TSE
+    // Índice 0 = opção 1 (16 anos), índice 1 = opção 2 (17 anos), etc.
+    private static final int[] CODIGOS_FAIXA_ETARIA = {
+        1600, 1700, 1800, 2100, 2500, 3000, 3500, 4000, 4500,
+        5000, 5500, 6000, 6500, 7000, 7500, 8000, 8500, 9000, 9500, 10000
+    };
+
+    // Códigos de estado civil por opção do menu (índice = opção)
+    private static final int[] CODIGOS_ESTADO_CIVIL = {0, 1, 3, 9, 5, 7};
+
+    private final int abrangencia;
+    private final int cidade;
+    private final int zona;
+    private final int numero;       // seção ou local, conforme a abrangência
+
+    private final DimensaoPerfil dimensao; // null: TODOS, DEFICIENCIA e BIOMETRIA não filtram
+    private final int medida;
+
+    // valor v é aceito quando aceitos[v - base] == true
+    private final int base;
+    private final boolean[] aceitos;
+
+    // nenhum registro pode passar (abrangência/perfil desconhecido ou opção inválida)
+    private final boolean vazia;
+
+    private ConsultaCompilada(int abrangencia, int cidade, int zona, int numero,
+                              DimensaoPerfil dimensao, int medida, int base, boolean[] aceitos,
+                              boolean vazia) {
+        this.abrangencia = abrangencia;
+        this.cidade = cidade;
+        this.zona = zona;
+        this.numero = numero;
+        this.dimensao = dimensao;
+        this.medida = medida;
+        this.base = base;
+        this.aceitos = aceitos;
+        this.vazia = vazia;
+    }
+
+    /**
+     * Resolve os filtros de calcularEleitores em um plano.
+     *
+     * @param armazem Armazém carregado (dicionários de gênero/obrigatoriedade)
+     */
+    public static ConsultaCompilada compilar(
+            ArmazemColunar armazem,
+            String filtroAbrangencia, int codigoCidade, int numeroZona,
+            int numeroSecao, int numeroLocal,
+            String filtroPerfil, String valorPerfil) {
+
+        boolean vazia = false;
+
+        int abrangencia;
+        int numero = 0;
+        switch (String.valueOf(filtroAbrangencia)) {
+            case "ESTADO":
+                abrangencia = ESTADO;
+                break;
+            case "CIDADE":
+                abrangencia = CIDADE;
+                break;
+            case "LOCAL":
+                abrangencia = LOCAL;
+                numero = numeroLocal;
+                break;
+            case "SECAO":
+                abrangencia = SECAO;
+                numero = numeroSecao;
+                break;
+            default:
+                abrangencia = ESTADO;
+                vazia = true;
+        }
+
+        DimensaoPerfil dimensao = DimensaoPerfil.doFiltro(filtroPerfil);
+        int medida = ELEITORES;
+        int base = 0;
+        boolean[] aceitos = null;
+
+        if (dimensao == null) {
+            switch (String.valueOf(filtroPerfil)) {
+                case "TODOS":
+                    break;
+                case "BIOMETRIA":
+                    medida = BIOMETRIA;
+                    break;
+                case "DEFICIENCIA":
+                    medida = DEFICIENCIA;
+                    break;
+                default:
+                    vazia = true;
+            }
+        } else if (dimensao.porDicionario()) {
+            // aceita os códigos do dicionário cujo texto bate
+            Dicionario dicionario = dimensao.dicionario(armazem);
+            aceitos = new boolean[dicionario.tamanho()];
+            int qtd = 0;
+            for (int c = 0; c < aceitos.length; c++) {
+                aceitos[c] = dicionario.valor(c).equalsIgnoreCase(valorPerfil);
+                if (aceitos[c]) qtd++;
+            }
+            vazia |= qtd == 0;
+        } else {
+            // um único código aceito: tabela de uma posição a partir dele
+            base = codigoDaOpcao(filtroPerfil, valorPerfil);
+            aceitos = new boolean[] {true};
+            vazia |= base == SEM_CODIGO;
+        }
+
+        return new ConsultaCompilada(abrangencia, codigoCidade, numeroZona, numero,
+                dimensao, medida, base, aceitos, vazia);
+    }
+
+    /**
+     * Converte a opção do menu no código do TSE da dimensão
+     * (FAIXA_ETARIA, ESCOLARIDADE, ESTADO_CIVIL ou RACA_COR).
+     *
+     * @return Código do TSE, ou SEM_CODIGO se a opção for inválida
+     */
+    public static int codigoDaOpcao(String filtroPerfil, String opcao) {
+        int opcaoNum;
+        try {
+            opcaoNum = Integer.parseInt(opcao);
+        } catch (NumberFormatException e) {
+            return SEM_CODIGO;
+        }
+
+        switch (filtroPerfil) {
+            case "FAIXA_ETARIA":
+                if (opcaoNum < 1 || opcaoNum > CODIGOS_FAIXA_ETARIA.length) {
+                    return SEM_CODIGO;
+                }
+                return CODIGOS_FAIXA_ETARIA[opcaoNum - 1];
+            case "ESTADO_CIVIL":
+                if (opcaoNum < 0 || opcaoNum >= CODIGOS_ESTADO_CIVIL.length) {
+                    return SEM_CODIGO;
+                }
+                return CODIGOS_ESTADO_CIVIL[opcaoNum];
+            case "ESCOLARIDADE":
+            case "RACA_COR":
+                return opcaoNum;
+            default:
+                return SEM_CODIGO;
+        }
+    }
+
+    // ========== Execução ==========
+
+    /**
+     * Soma a medida sobre as linhas [inicio, fim) do armazém que passam nos filtros.
+     */
+    public long somar(ArmazemColunar armazem, int inicio, int fim) {
+        if (vazia) return 0;
+
+        // tudo que o laço usa vai para variáveis locais
+        final boolean filtraCidade = abrangencia != ESTADO;
+        final boolean filtraZona = abrangencia == LOCAL || abrangencia == SECAO;
+        final boolean filtraPerfil = dimensao != null;
+
+        final int[] codCidade = armazem.codCidade;
+        final int[] nrZona = armazem.nrZona;
+        final int[] colunaNumero = abrangencia == LOCAL ? armazem.nrLocalVotacao : armazem.nrSecao;
+        final int[] colunaPerfil = colunaPerfil(armazem);
+        final int[] colunaMedida = colunaMedida(armazem);
+
+        final int cidade = this.cidade;
+        final int zona = this.zona;
+        final int numero = this.numero;
+        final int base = this.base;
+        final boolean[] aceitos = this.aceitos;
+
+        long total = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (filtraCidade && codCidade[i] != cidade) continue;
+            if (filtraZona && (nrZona[i] != zona || colunaNumero[i] != numero)) continue;
+            if (filtraPerfil) {
+                int k = colunaPerfil[i] - base;
+                if (k < 0 || k >= aceitos.length || !aceitos[k]) continue;
+            }
+            total += colunaMedida[i];
+        }
+        return total;
+    }
+
+    /**
+     * O mesmo que somar(ArmazemColunar, ...), lendo as colunas fora do heap.
+     */
+    public long somar(ArmazemForaDoHeap armazem, int inicio, int fim) {
+        if (vazia) return 0;
+
+        final boolean filtraCidade = abrangencia != ESTADO;
+        final boolean filtraZona = abrangencia == LOCAL || abrangencia == SECAO;
+        final boolean filtraPerfil = dimensao != null;
+
+        final MemorySegment codCidade = armazem.coluna(ArmazemForaDoHeap.COD_CIDADE);
+        final MemorySegment nrZona = armazem.coluna(ArmazemForaDoHeap.NR_ZONA);
+        final MemorySegment colunaNumero = armazem.coluna(abrangencia == LOCAL
+                ? ArmazemForaDoHeap.NR_LOCAL_VOTACAO : ArmazemForaDoHeap.NR_SECAO);
+        final MemorySegment colunaPerfil = filtraPerfil ? armazem.coluna(campoPerfil()) : null;
+        final MemorySegment colunaMedida = armazem.coluna(campoMedida());
+
+        final int cidade = this.cidade;
+        final int zona = this.zona;
+        final int numero = this.numero;
+        final int base = this.base;
+        final boolean[] aceitos = this.aceitos;
+
+        long total = 0;
+        for (int i = inicio; i < fim; i++) {
+            if (filtraCidade && codCidade.getAtIndex(INT, i) != cidade) continue;
+            if (filtraZona && (nrZona.getAtIndex(INT, i) != zona
+                    || colunaNumero.getAtIndex(INT, i) != numero)) continue;
+            if (filtraPerfil) {
+                int k = colunaPerfil.getAtIndex(INT, i) - base;
+                if (k < 0 || k >= aceitos.length || !aceitos[k]) continue;
+            }
+            total += colunaMedida.getAtIndex(INT, i);
+        }
+        return total;
+    }
+
+    /**
+     * Soma a medida sobre as linhas informadas (ex: as de um nó da árvore)
+     * que passam nos filtros.
+     */
+    public long somar(ArmazemColunar armazem, int[] linhas) {
+        if (vazia || linhas == null) return 0;
+
+        final boolean filtraCidade = abrangencia != ESTADO;
+        final boolean filtraZona = abrangencia == LOCAL || abrangencia == SECAO;
+        final boolean filtraPerfil = dimensao != null;
+
+        final int[] codCidade = armazem.codCidade;
+        final int[] nrZona = armazem.nrZona;
+        final int[] colunaNumero = abrangencia == LOCAL ? armazem.nrLocalVotacao : armazem.nrSecao;
+        final int[] colunaPerfil = colunaPerfil(armazem);
+        final int[] colunaMedida = colunaMedida(armazem);
+
+        long total = 0;
+        for (int linha : linhas) {
+            if (filtraCidade && codCidade[linha] != cidade) continue;
+            if (filtraZona && (nrZona[linha] != zona || colunaNumero[linha] != numero)) continue;
+            if (filtraPerfil) {
+                int k = colunaPerfil[linha] - base;
+                if (k < 0 || k >= aceitos.length || !aceitos[k]) continue;
+            }
+            total += colunaMedida[linha];
+        }
+        return total;
+    }
+
+    /**
+     * O mesmo que somar(ArmazemColunar, int[]), lendo as colunas fora do heap.
+     */
+    public long somar(ArmazemForaDoHeap armazem, int[] linhas) {
+        if (vazia || linhas == null) return 0;
+
+        final boolean filtraCidade = abrangencia != ESTADO;
+        final boolean filtraZona = abrangencia == LOCAL || abrangencia == SECAO;
+        final boolean filtraPerfil = dimensao != null;
+
+        final MemorySegment codCidade = armazem.coluna(ArmazemForaDoHeap.COD_CIDADE);
+        final MemorySegment nrZona = armazem.coluna(ArmazemForaDoHeap.NR_ZONA);
+        final MemorySegment colunaNumero = armazem.coluna(abrangencia == LOCAL
+                ? ArmazemForaDoHeap.NR_LOCAL_VOTACAO : ArmazemForaDoHeap.NR_SECAO);
+        final MemorySegment colunaPerfil = filtraPerfil ? armazem.coluna(campoPerfil()) : null;
+        final MemorySegment colunaMedida = armazem.coluna(campoMedida());
+
+        long total = 0;
+        for (int linha : linhas) {
+            if (filtraCidade && codCidade.getAtIndex(INT, linha) != cidade) continue;
+            if (filtraZona && (nrZona.getAtIndex(INT, linha) != zona
+                    || colunaNumero.getAtIndex(INT, linha) != numero)) continue;
+            if (filtraPerfil) {
+                int k = colunaPerfil.getAtIndex(INT, linha) - base;
+                if (k < 0 || k >= aceitos.length || !aceitos[k]) continue;
+            }
+            total += colunaMedida.getAtIndex(INT, linha);
+        }
+        return total;
+    }
+
+    /**
+     * Se um valor da dimensão filtrada é aceito (código do dicionário para
+     * GENERO/OBRIGATORIEDADE, código do TSE para as demais).
+     */
+    public boolean aceitaValor(int valor) {
+        if (vazia) return false;
+        if (dimensao == null) return true;
+        int k = valor - base;
+        return k >= 0 && k < aceitos.length && aceitos[k];
+    }
+
+    // ========== Informações para o MotorVarredura ==========
+
+    /**
+     * Se a consulta cobre o estado todo (só o perfil filtra as linhas).
+     */
+    boolean abrangeEstado() {
+        return !vazia && abrangencia == ESTADO;
+    }
+
+    /**
+     * O único valor aceito na coluna de perfil, ou SEM_CODIGO se houver
+     * mais de um (ex: variações de maiúsculas no dicionário) ou nenhum.
+     */
+    int valorUnicoAceito() {
+        if (dimensao == null) return SEM_CODIGO;
+        if (dimensao.porDicionario()) {
+            int unico = SEM_CODIGO;
+            for (int c = 0; c < aceitos.length; c++) {
+                if (aceitos[c]) {
+                    if (unico != SEM_CODIGO) return SEM_CODIGO;
+                    unico = c;
+                }
+            }
+            return unico;
+        }
+        return base;
+    }
+
+    /**
+     * Coluna filtrada pelo perfil, ou null se o perfil não filtra.
+     */
+    int[] colunaPerfil(ArmazemColunar armazem) {
+        return dimensao == null ? null : dimensao.coluna(armazem);
+    }
+
+    /**
+     * Campo do ArmazemForaDoHeap equivalente a colunaPerfil (-1 sem filtro).
+     */
+    int campoPerfil() {
+        return dimensao == null ? -1 : dimensao.campoForaDoHeap;
+    }
+
+    /**
+     * Campo do ArmazemForaDoHeap equivalente a colunaMedida.
+     */
+    int campoMedida() {
+        switch (medida) {
+            case BIOMETRIA: return ArmazemForaDoHeap.QT_ELEITORES_BIOMETRIA;
+            case DEFICIENCIA: return ArmazemForaDoHeap.QT_ELEITORES_DEFICIENCIA;
+            default: return ArmazemForaDoHeap.QT_ELEITORES_PERFIL;
+        }
+    }
+
+    /**
+     * Coluna somada (eleitores, biometria ou deficiência).
+     */
+    int[] colunaMedida(ArmazemColunar armazem) {
+        switch (medida) {
+            case BIOMETRIA: return armazem.qtEleitoresBiometria;
+            case DEFICIENCIA: return armazem.qtEleitoresDeficiencia;
+            default: return armazem.qtEleitoresPerfil;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package unitins.br;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Cubo de agregação pré-calculado na carga.
+ *
+ * Toda consulta de calcularEleitores é uma soma de qtEleitoresPerfil (ou de
+ * biometria/deficiência) agrupada por poucos códigos de baixa cardinalidade.
+ * Aqui essas somas são feitas uma vez só, por célula:
+ *
+ *   - o estado inteiro;
+ *   - cada cidade;
+ *   - cada (cidade, zona, seção);
+ *   - cada (cidade, zona, local de votação).
+ *
+ * Cada célula guarda os totais (eleitores, biometria, deficiência) e, para
+ * cada dimensão (gênero, obrigatoriedade, faixa etária, escolaridade, estado
+ * civil, raça/cor), a soma de eleitores de cada valor. A consulta localiza a
+ * célula por busca binária e soma os poucos valores aceitos pelo filtro.
+ */
+public class CuboAgregado {
+
+    // Medidas (totais de cada célula)
+    public static final int MEDIDA_ELEITORES = 0;
+    public static final int MEDIDA_BIOMETRIA = 1;
+    public static final int MEDIDA_DEFICIENCIA = 2;
+    private static final int QTD_MEDIDAS = 3;
+
+    // Dimensões (somas de eleitores por valor): uma por DimensaoPerfil, na ordem do enum
+    private static final int QTD_DIMENSOES = DimensaoPerfil.TODAS.length;
+
+    // valores distintos de cada dimensão (em ordem crescente) e onde começam na célula
+    private final int[][] valoresDimensao = new int[QTD_DIMENSOES][];
+    private final int[] deslocamentoDimensao = new int[QTD_DIMENSOES];
+    private final int largura; // longs por célula
+
+    // chaves das células, em ordem crescente (busca binária)
+    private final int[] chavesCidade;
+    private final long[] chavesSecao;
+    private final long[] chavesLocal;
+
+    // false se alguma (cidade, zona, seção/local) não coube na chave de 64
+    // bits; essas linhas ficam de fora das células de seção e local
+    private final boolean cobreSecoesELocais;
+
+    // células: [estado][cidades][seções][locais], cada uma com "largura" posições
+    private final int inicioCidades;
+    private final int inicioSecoes;
+    private final int inicioLocais;
+    private final long[] celulas;
+
+    /**
+     * Aloca as células para as chaves dadas (já em ordem crescente) e acha os
+     * valores de cada dimensão. As somas são feitas depois, por acumular().
+     */
+    private CuboAgregado(ArmazemColunar armazem, int[] chavesCidade, long[] chavesSecao,
+                         long[] chavesLocal, boolean cobreSecoesELocais) {
+        int linhas = armazem.tamanho();
+        int[][] colunas = colunasDimensao(armazem);
+
+        int posicao = QTD_MEDIDAS;
+        for (int d = 0; d < QTD_DIMENSOES; d++) {
+            valoresDimensao[d] = Vetores.distintos(colunas[d], 0, linhas);
+            deslocamentoDimensao[d] = posicao;
+            posicao += valoresDimensao[d].length;
+        }
+        largura = posicao;
+
+        conferirOrdem(chavesSecao);
+        conferirOrdem(chavesLocal);
+        this.chavesCidade = chavesCidade;
+        this.chavesSecao = chavesSecao;
+        this.chavesLocal = chavesLocal;
+        this.cobreSecoesELocais = cobreSecoesELocais;
+
+        inicioCidades = 1;
+        inicioSecoes = inicioCidades + chavesCidade.length;
+        inicioLocais = inicioSecoes + chavesSecao.length;
+        int totalCelulas = inicioLocais + chavesLocal.length;
+        celulas = new long[totalCelulas * largura];
+    }
+
+    /**
+     * Monta o cubo a partir do índice cidade -> zona -> seção/local: as
+     * células de seção e de local são os grupos do próprio índice (chaves já
+     * em ordem), sem chave por linha nem ordenação das linhas.
+     */
+    public static CuboAgregado deHierarquico(ArmazemColunar armazem, IndiceHierarquico indice) {
+        int[] cidades = indice.cidades();
+
+        // 1. contando e depois preenchendo as chaves que cabem nos 64 bits
+        int qtdSecoes = 0;
+        int qtdLocais = 0;
+        int totalGrupos = 0;
+        for (int c = 0; c < cidades.length; c++) {
+            for (IndiceHierarquico.NivelZona zona : indice.nivel(c).niveis) {
+                qtdSecoes = coletarChaves(cidades[c], zona.nrZona, zona.porSecao.chaves(), null, qtdSecoes);
+                qtdLocais = coletarChaves(cidades[c], zona.nrZona, zona.porLocal.chaves(), null, qtdLocais);
+                totalGrupos += zona.porSecao.tamanho() + zona.porLocal.tamanho();
+            }
+        }
+        long[] chavesSecao = new long[qtdSecoes];
+        long[] chavesLocal = new long[qtdLocais];
+        int s = 0;
+        int l = 0;
+        for (int c = 0; c < cidades.length; c++) {
+            for (IndiceHierarquico.NivelZona zona : indice.nivel(c).niveis) {
+                s = coletarChaves(cidades[c], zona.nrZona, zona.porSecao.chaves(), chavesSecao, s);
+                l = coletarChaves(cidades[c], zona.nrZona, zona.porLocal.chaves(), chavesLocal, l);
+            }
+        }
+
+        CuboAgregado cubo = new CuboAgregado(armazem, cidades, chavesSecao, chavesLocal,
+                qtdSecoes + qtdLocais == totalGrupos);
+
+        // 2. somando as linhas de cada grupo (estado e cidade entram pelas seções)
+        int[][] colunas = colunasDimensao(armazem);
+        int[] posicaoNaCelula = new int[QTD_DIMENSOES];
+        s = 0;
+        l = 0;
+        for (int c = 0; c < cidades.length; c++) {
+            int celulaCidade = cubo.inicioCidades + c;
+            for (IndiceHierarquico.NivelZona zona : indice.nivel(c).niveis) {
+                int[] secoes = zona.porSecao.chaves();
+                for (int g = 0; g < secoes.length; g++) {
+                    int celulaSecao = chave(cidades[c], zona.nrZona, secoes[g]) == SEM_CHAVE
+                            ? -1 : cubo.inicioSecoes + s++;
+                    for (int linha : zona.porSecao.grupo(g)) {
+                        cubo.acumular(armazem, colunas, posicaoNaCelula, linha, 0, celulaCidade, celulaSecao, -1);
+                    }
+                }
+
+                int[] locais = zona.porLocal.chaves();
+                for (int g = 0; g < locais.length; g++) {
+                    if (chave(cidades[c], zona.nrZona, locais[g]) == SEM_CHAVE) {
+                        continue;
+                    }
+                    int celulaLocal = cubo.inicioLocais + l++;
+                    for (int linha : zona.porLocal.grupo(g)) {
+                        cubo.acumular(armazem, colunas, posicaoNaCelula, linha, -1, -1, -1, celulaLocal);
+                    }
+                }
+            }
+        }
+        return cubo;
+    }
+
+    /**
+     * Monta o cubo a partir das faixas de um armazém agrupado: as seções já
+     * são faixas em ordem; os locais de cada zona são ordenados só dentro
+     * da faixa da zona.
+     */
+    public static CuboAgregado deFaixas(ArmazemColunar armazem, IndiceFaixas faixas) {
+        int[] cidades = faixas.cidades();
+        int[] nrLocal = armazem.nrLocalVotacao;
+
+        // 1. chaves: seções direto das faixas, locais distintos de cada zona
+        int[][] locaisDaZona = new int[faixas.totalZonas()][];
+        int qtdSecoes = 0;
+        int qtdLocais = 0;
+        boolean cobre = true;
+        for (int c = 0; c < cidades.length; c++) {
+            for (int z = faixas.primeiraZona(c); z < faixas.primeiraZona(c + 1); z++) {
+                locaisDaZona[z] = Vetores.distintos(nrLocal, faixas.inicioZona(z), faixas.inicioZona(z + 1));
+                int secoes = faixas.primeiraSecao(z + 1) - faixas.primeiraSecao(z);
+                int antes = qtdSecoes;
+                for (int p = faixas.primeiraSecao(z); p < faixas.primeiraSecao(z + 1); p++) {
+                    if (chave(cidades[c], faixas.zona(z), faixas.secao(p)) != SEM_CHAVE) {
+                        qtdSecoes++;
+                    }
+                }
+                int antesLocais = qtdLocais;
+                qtdLocais = coletarChaves(cidades[c], faixas.zona(z), locaisDaZona[z], null, qtdLocais);
+                cobre &= qtdSecoes - antes == secoes && qtdLocais - antesLocais == locaisDaZona[z].length;
+            }
+        }
+        long[] chavesSecao = new long[qtdSecoes];
+        long[] chavesLocal = new long[qtdLocais];
+        int s = 0;
+        int l = 0;
+        for (int c = 0; c < cidades.length; c++) {
+            for (int z = faixas.primeiraZona(c); z < faixas.primeiraZona(c + 1); z++) {
+                for (int p = faixas.primeiraSecao(z); p < faixas.primeiraSecao(z + 1); p++) {
+                    long chave = chave(cidades[c], faixas.zona(z), faixas.secao(p));
+                    if (chave != SEM_CHAVE) {
+                        chavesSecao[s++] = chave;
+                    }
+                }
+                l = coletarChaves(cidades[c], faixas.zona(z), locaisDaZona[z], chavesLocal, l);
+            }
+        }
+
+        CuboAgregado cubo = new CuboAgregado(armazem, cidades, chavesSecao, chavesLocal, cobre);
+
+        // 2. uma passada pelas linhas, zona a zona (as seções estão em sequência)
+        int[][] colunas = colunasDimensao(armazem);
+        int[] posicaoNaCelula = new int[QTD_DIMENSOES];
+        s = 0;
+        l = 0;
+        for (int c = 0; c < cidades.length; c++) {
+            int celulaCidade = cubo.inicioCidades + c;
+            for (int z = faixas.primeiraZona(c); z < faixas.primeiraZona(c + 1); z++) {
+                int[] locais = locaisDaZona[z];
+                int[] celulaDoLocal = new int[locais.length];
+                for (int i = 0; i < locais.length; i++) {
+                    celulaDoLocal[i] = chave(cidades[c], faixas.zona(z), locais[i]) == SEM_CHAVE
+                            ? -1 : cubo.inicioLocais + l++;
+                }
+
+                for (int p = faixas.primeiraSecao(z); p < faixas.primeiraSecao(z + 1); p++) {
+                    int celulaSecao = chave(cidades[c], faixas.zona(z), faixas.secao(p)) == SEM_CHAVE
+                            ? -1 : cubo.inicioSecoes + s++;
+                    for (int linha = faixas.inicioSecao(p); linha < faixas.inicioSecao(p + 1); linha++) {
+                        int celulaLocal = celulaDoLocal[Arrays.binarySearch(locais, nrLocal[linha])];
+                        cubo.acumular(armazem, colunas, posicaoNaCelula, linha,
+                                0, celulaCidade, celulaSecao, celulaLocal);
+                    }
+                }
+            }
+        }
+        return cubo;
+    }
+
+    // colunas das dimensões, na ordem de DimensaoPerfil
+    private static int[][] colunasDimensao(ArmazemColunar armazem) {
+        int[][] colunas = new int[QTD_DIMENSOES][];
+        for (DimensaoPerfil dimensao : DimensaoPerfil.TODAS) {
+            colunas[dimensao.ordinal()] = dimensao.coluna(armazem);
+        }
+        return colunas;
+    }
+
+    // soma a linha em até quatro células (estado, cidade, seção, local); -1 = não soma
+    private void acumular(ArmazemColunar armazem, int[][] colunas, int[] posicaoNaCelula, int linha,
+                          int celulaEstado, int celulaCidade, int celulaSecao, int celulaLocal) {
+        // posição (dentro da célula) do valor da linha em cada dimensão
+        for (int d = 0; d < QTD_DIMENSOES; d++) {
+            posicaoNaCelula[d] = deslocamentoDimensao[d]
+                    + Arrays.binarySearch(valoresDimensao[d], colunas[d][linha]);
+        }
+
+        int eleitores = armazem.qtEleitoresPerfil[linha];
+        int biometria = armazem.qtEleitoresBiometria[linha];
+        int deficiencia = armazem.qtEleitoresDeficiencia[linha];
+        somar(celulaEstado, eleitores, biometria, deficiencia, posicaoNaCelula);
+        somar(celulaCidade, eleitores, biometria, deficiencia, posicaoNaCelula);
+        somar(celulaSecao, eleitores, biometria, deficiencia, posicaoNaCelula);
+        somar(celulaLocal, eleitores, biometria, deficiencia, posicaoNaCelula);
+    }
+
+    private void somar(int celula, int eleitores, int biometria, int deficiencia, int[] posicaoNaCelula) {
+        if (celula < 0) {
+            return;
+        }
+        int base = celula * largura;
+        celulas[base + MEDIDA_ELEITORES] += eleitores;
+        celulas[base + MEDIDA_BIOMETRIA] += biometria;
+        celulas[base + MEDIDA_DEFICIENCIA] += deficiencia;
+        for (int d = 0; d < QTD_DIMENSOES; d++) {
+            celulas[base + posicaoNaCelula[d]] += eleitores;
+        }
+    }
+
+    // ========== Localização das células ==========
+
+    public int celulaEstado() {
+        return 0;
+    }
+
+    /**
+     * @return Célula da cidade, ou -1 se não existir
+     */
+    public int celulaCidade(int codCidade) {
+        int pos = Arrays.binarySearch(chavesCidade, codCidade);
+        return pos < 0 ? -1 : inicioCidades + pos;
+    }
+
+    /**
+     * @return Célula da seção, ou -1 se não existir
+     */
+    public int celulaSecao(int codCidade, int nrZona, int nrSecao) {
+        long chave = chave(codCidade, nrZona, nrSecao);
+        if (chave == SEM_CHAVE) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(chavesSecao, chave);
+        return pos < 0 ? -1 : inicioSecoes + pos;
+    }
+
+    /**
+     * @return Célula do local de votação, ou -1 se não existir
+     */
+    public int celulaLocal(int codCidade, int nrZona, int nrLocal) {
+        long chave = chave(codCidade, nrZona, nrLocal);
+        if (chave == SEM_CHAVE) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(chavesLocal, chave);
+        return pos < 0 ? -1 : inicioLocais + pos;
+    }
+
+    // ========== Consultas ==========
+
+    /**
+     * Retorna uma medida (MEDIDA_*) da célula.
+     */
+    public long medida(int celula, int medida) {
+        if (celula < 0) return 0;
+        return celulas[celula * largura + medida];
+    }
+
+    /**
+     * Soma os eleitores da célula cujos valores na dimensão são aceitos.
+     *
+     * @param aceita Recebe o valor da dimensão (código do dicionário ou cd_*)
+     */
+    public long somar(int celula, DimensaoPerfil dimensao, IntPredicate aceita) {
+        if (celula < 0) return 0;
+
+        int d = dimensao.ordinal();
+        int[] valores = valoresDimensao[d];
+        int base = celula * largura + deslocamentoDimensao[d];
+        long total = 0;
+        for (int v = 0; v < valores.length; v++) {
+            if (aceita.test(valores[v])) {
+                total += celulas[base + v];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * true se todas as linhas entraram nas células de seção e local; se não,
+     * as consultas SECAO/LOCAL precisam ir pelos índices.
+     */
+    public boolean cobreSecoesELocais() {
+        return cobreSecoesELocais;
+    }
+
+    /**
+     * Quantidade de células (estado + cidades + seções + locais).
+     */
+    public int totalCelulas() {
+        return celulas.length / largura;
+    }
+
+    /**
+     * Memória aproximada ocupada pelas células, em bytes.
+     */
+    public long bytesCelulas() {
+        return celulas.length * 8L;
+    }
+
+    // chave de quem não cabe nos bits (as válidas são todas >= 0)
+    private static final long SEM_CHAVE = -1L;
+
+    // (cidade, zona, seção/local) em 64 bits: 24 + 20 + 20 bits. Fora da
+    // faixa devolve SEM_CHAVE, senão a máscara faria, por exemplo, a seção
+    // 1048577 cair na célula da seção 1
+    private static long chave(int cidade, int zona, int numero) {
+        if (cidade < 0 || cidade > 0xFFFFFF || zona < 0 || zona > 0xFFFFF || numero < 0 || numero > 0xFFFFF) {
+            return SEM_CHAVE;
+        }
+        return ((long) cidade << 40) | ((long) zona << 20) | numero;
+    }
+
+    // grava em destino (a partir de pos) as chaves dos números da zona que
+    // cabem nos 64 bits; com destino null só conta. Devolve a nova posição
+    private static int coletarChaves(int cidade, int zona, int[] numeros, long[] destino, int pos) {
+        for (int numero : numeros) {
+            long chave = chave(cidade, zona, numero);
+            if (chave == SEM_CHAVE) {
+                continue;
+            }
+            if (destino != null) {
+                destino[pos] = chave;
+            }
+            pos++;
+        }
+        return pos;
+    }
+
+    // as células são achadas por busca binária: as chaves precisam vir em ordem
+    private static void conferirOrdem(long[] chaves) {
+        for (int i = 1; i < chaves.length; i++) {
+            if (chaves[i] <= chaves[i - 1]) {
+                throw new IllegalStateException("Chaves do cubo fora de ordem na posição " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package unitins.br;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dicionário de strings: cada valor distinto recebe um código inteiro
+ * sequencial (0, 1, 2...) e é guardado uma única vez.
+ *
+ * Usado para codificar as colunas de texto de baixa cardinalidade
+ * (gênero, faixa etária, nome da cidade...) que se repetem milhões de vezes.
+ */
+public class Dicionario {
+
+    private final Map<String, Integer> codigoPorValor;
+    private String[] valores;
+    private int tamanho;
+
+    public Dicionario() {
+        this.codigoPorValor = new HashMap<>();
+        this.valores = new String[16];
+        this.tamanho = 0;
+    }
+
+    /**
+     * Retorna o código do valor, cadastrando-o se ainda não existir.
+     */
+    public int codificar(String valor) {
+        Integer codigo = codigoPorValor.get(valor);
+        if (codigo != null) {
+            return codigo;
+        }
+
+        if (tamanho == valores.length) {
+            String[] novoArray = new String[tamanho * 2];
+            System.arraycopy(valores, 0, novoArray, 0, tamanho);
+            valores = novoArray;
+        }
+
+        valores[tamanho] = valor;
+        codigoPorValor.put(valor, tamanho);
+        return tamanho++;
+    }
+
+    /**
+     * Retorna o código de um valor já cadastrado, ou -1 se não existir.
+     */
+    public int codigo(String valor) {
+        Integer codigo = codigoPorValor.get(valor);
+        return codigo == null ? -1 : codigo;
+    }
+
+    /**
+     * Retorna o valor associado a um código.
+     */
+    public String valor(int codigo) {
+        return valores[codigo];
+    }
+
+    /**
+     * Retorna a quantidade de valores distintos.
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Estimativa de bytes de heap ocupados pelo dicionário: os valores
+     * distintos, o vetor de valores e as entradas do HashMap (nó + Integer).
+     */
+    public long bytesEstimados() {
+        long total = 16 + 4L * valores.length;
+        for (int i = 0; i < tamanho; i++) {
+            total += tamanhoEstimado(valores[i]) + 48;
+        }
+        return total;
+    }
+
+    /**
+     * Tamanho aproximado de uma String Latin-1 na JVM de 64 bits:
+     * objeto String (24 bytes) + byte[] (16 bytes de cabeçalho + conteúdo), alinhados em 8.
+     */
+    static long tamanhoEstimado(String valor) {
+        long conteudo = 16 + valor.length();
+        return 24 + ((conteudo + 7) & ~7L);
+    }
+}
@@ -0,0 +1,72 @@
+package unitins.br;
+
+/**
+ * Dimensões de perfil que filtram calcularEleitores (o nome de cada uma é o
+ * do filtro no menu). Cubo, índice de bitmaps e consulta compilada usam esta
+ * mesma enumeração, e é só aqui que o filtro é ligado à coluna do armazém.
+ */
+public enum DimensaoPerfil {
+
+    GENERO(ArmazemForaDoHeap.DS_GENERO),                        // código do dicionário de dsGenero
+    OBRIGATORIEDADE(ArmazemForaDoHeap.TP_OBRIGATORIEDADE_VOTO), // código do dicionário de tpObrigatoriedadeVoto
+    FAIXA_ETARIA(ArmazemForaDoHeap.CD_FAIXA_ETARIA),            // cdFaixaEtaria
+    ESCOLARIDADE(ArmazemForaDoHeap.CD_GRAU_ESCOLARIDADE),       // cdGrauEscolaridade
+    ESTADO_CIVIL(ArmazemForaDoHeap.CD_ESTADO_CIVIL),            // cdEstadoCivil
+    RACA_COR(ArmazemForaDoHeap.CD_RACA_COR);                    // cdRacaCor
+
+    // values() copia o vetor a cada chamada
+    static final DimensaoPerfil[] TODAS = values();
+
+    /** Campo equivalente no ArmazemForaDoHeap. */
+    final int campoForaDoHeap;
+
+    DimensaoPerfil(int campoForaDoHeap) {
+        this.campoForaDoHeap = campoForaDoHeap;
+    }
+
+    /**
+     * Dimensão de um filtro do menu, ou null se ele não filtra por dimensão
+     * (TODOS, DEFICIENCIA, BIOMETRIA) ou não existe.
+     */
+    public static DimensaoPerfil doFiltro(String filtroPerfil) {
+        for (DimensaoPerfil dimensao : TODAS) {
+            if (dimensao.name().equals(filtroPerfil)) {
+                return dimensao;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Coluna da dimensão no armazém. Lida a cada chamada: agrupar() troca os arrays.
+     */
+    int[] coluna(ArmazemColunar armazem) {
+        switch (this) {
+            case GENERO: return armazem.dsGenero.codigos;
+            case OBRIGATORIEDADE: return armazem.tpObrigatoriedadeVoto.codigos;
+            case FAIXA_ETARIA: return armazem.cdFaixaEtaria;
+            case ESCOLARIDADE: return armazem.cdGrauEscolaridade;
+            case ESTADO_CIVIL: return armazem.cdEstadoCivil;
+            default: return armazem.cdRacaCor;
+        }
+    }
+
+    /**
+     * true se a coluna guarda o código do dicionário do texto (GENERO e
+     * OBRIGATORIEDADE); nas demais ela já guarda o código do TSE.
+     */
+    boolean porDicionario() {
+        return this == GENERO || this == OBRIGATORIEDADE;
+    }
+
+    /**
+     * Dicionário dos valores da coluna, ou null se !porDicionario().
+     */
+    Dicionario dicionario(ArmazemColunar armazem) {
+        switch (this) {
+            case GENERO: return armazem.dsGenero.dicionario;
+            case OBRIGATORIEDADE: return armazem.tpObrigatoriedadeVoto.dicionario;
+            default: return null;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package unitins.br;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Gera um CSV sintético no formato do perfil do eleitorado por seção do TSE
+ * (31 colunas, separador ';', ISO-8859-1).
+ *
+ * Os dados seguem a organização do arquivo real: linhas em ordem de
+ * município, zona e seção, cada seção com várias linhas de perfil (gênero,
+ * estado civil, faixa etária...). A quantidade de municípios cresce com o
+ * total de linhas até o número de municípios do Brasil, e os demais níveis
+ * (zonas, seções, locais) crescem junto. Com a mesma semente e a mesma
+ * quantidade de linhas o arquivo gerado é sempre o mesmo, então serve para
+ * benchmarks e testes sem depender do download.
+ *
+ * Pela linha de comando gera o arquivo com o nome que o AppService procura
+ * em dados/ (veja main).
+ */
+public class GeradorDadosTse {
+
+    /** Muda quando o conteúdo gerado para uma mesma semente muda. */
+    public static final int VERSAO = 2;
+
+    public static final long MINIMO_LINHAS = 10_000L;
+    public static final long MAXIMO_LINHAS = 500_000_000L;
+
+    // Linhas por município (média) e limite de municípios (Brasil: 5.570)
+    private static final long LINHAS_POR_CIDADE = 5_000L;
+    private static final int MAXIMO_CIDADES = 5_570;
+
+    // Linhas por zona eleitoral (média)
+    private static final long LINHAS_POR_ZONA = 30_000L;
+
+    public static final String CABECALHO =
+            "\"DT_GERACAO\";\"HH_GERACAO\";\"ANO_ELEICAO\";\"SG_UF\";\"CD_MUNICIPIO\";\"NM_MUNICIPIO\";"
+            + "\"NR_ZONA\";\"NR_SECAO\";\"NR_LOCAL_VOTACAO\";\"NM_LOCAL_VOTACAO\";\"CD_GENERO\";\"DS_GENERO\";"
+            + "\"CD_ESTADO_CIVIL\";\"DS_ESTADO_CIVIL\";\"CD_FAIXA_ETARIA\";\"DS_FAIXA_ETARIA\";"
+            + "\"CD_GRAU_ESCOLARIDADE\";\"DS_GRAU_ESCOLARIDADE\";\"CD_RACA_COR\";\"DS_RACA_COR\";"
+            + "\"CD_IDENTIDADE_GENERO\";\"DS_IDENTIDADE_GENERO\";\"CD_QUILOMBOLA\";\"DS_QUILOMBOLA\";"
+            + "\"CD_INTERPRETE_LIBRAS\";\"DS_INTERPRETE_LIBRAS\";\"TP_OBRIGATORIEDADE_VOTO\";"
+            + "\"QT_ELEITORES_PERFIL\";\"QT_ELEITORES_BIOMETRIA\";\"QT_ELEITORES_DEFICIENCIA\";"
+            + "\"QT_ELEITORES_INC_NM_SOCIAL\"";
+
+    // Valores das dimensões (código + descrição), como no arquivo do TSE
+    private static final int[] CD_GENERO = {2, 4, 0};
+    private static final String[] DS_GENERO = {"MASCULINO", "FEMININO", "NÃO INFORMADO"};
+
+    private static final int[] CD_ESTADO_CIVIL = {1, 3, 9, 5, 7};
+    private static final String[] DS_ESTADO_CIVIL = {
+        "SOLTEIRO", "CASADO", "DIVORCIADO", "VIÚVO", "SEPARADO JUDICIALMENTE"
+    };
+
+    private static final int[] CD_FAIXA_ETARIA = {
+        1600, 1700, 1800, 2100, 2500, 3000, 3500, 4000, 4500,
+        5000, 5500, 6000, 6500, 7000, 7500, 8000, 8500, 9000, 9500, 10000
+    };
+    private static final String[] DS_FAIXA_ETARIA = {
+        "16 anos", "17 anos", "18 a 20 anos", "21 a 24 anos", "25 a 29 anos", "30 a 34 anos",
+        "35 a 39 anos", "40 a 44 anos", "45 a 49 anos", "50 a 54 anos", "55 a 59 anos",
+        "60 a 64 anos", "65 a 69 anos", "70 a 74 anos", "75 a 79 anos", "80 a 84 anos",
+        "85 a 89 anos", "90 a 94 anos", "95 a 99 anos", "100 anos ou mais"
+    };
+
+    private static final String[] DS_ESCOLARIDADE = {
+        "ANALFABETO", "LÊ E ESCREVE", "ENSINO FUNDAMENTAL INCOMPLETO", "ENSINO FUNDAMENTAL COMPLETO",
+        "ENSINO MÉDIO INCOMPLETO", "ENSINO MÉDIO COMPLETO", "SUPERIOR INCOMPLETO", "SUPERIOR COMPLETO"
+    };
+
+    private static final String[] DS_RACA_COR = {
+        "BRANCA", "PRETA", "PARDA", "AMARELA", "INDÍGENA", "NÃO INFORMADO"
+    };
+
+    private final Random random;
+    private final String uf;
+    private final long linhasPorCidade;
+    private final int zonasPorCidade;
+
+    // posição atual na hierarquia município -> zona -> seção
+    private int cidade = -1;
+    private int codCidade;
+    private long linhasRestantesCidade;
+    private int zonasRestantes;
+    private int nrZona;
+    private int nrSecao;
+    private int nrLocal;
+    private int linhasRestantesSecao;
+
+    /**
+     * @param semente Semente do gerador (mesma semente = mesmos dados)
+     * @param uf Sigla do estado gravada em SG_UF
+     * @param linhasPrevistas Total de linhas que serão geradas (define
+     *                        quantos municípios, zonas e seções existem)
+     */
+    public GeradorDadosTse(long semente, String uf, long linhasPrevistas) {
+        this.random = new Random(semente);
+        this.uf = uf;
+
+        long cidades = Math.max(1, Math.min(MAXIMO_CIDADES, linhasPrevistas / LINHAS_POR_CIDADE));
+        this.linhasPorCidade = Math.max(1, linhasPrevistas / cidades);
+        this.zonasPorCidade = (int) Math.max(1, linhasPorCidade / LINHAS_POR_ZONA);
+    }
+
+    /**
+     * Gera a próxima linha (sem quebra de linha no final).
+     */
+    public String proximaLinha() {
+        avancarSecao();
+        linhasRestantesSecao--;
+
+        StringBuilder sb = new StringBuilder(320);
+
+        int g = escolher(new int[] {48, 51, 1});
+        int ec = escolher(new int[] {45, 38, 8, 6, 3});
+        int fx = random.nextInt(CD_FAIXA_ETARIA.length);
+        int esc = random.nextInt(DS_ESCOLARIDADE.length);
+        int raca = escolher(new int[] {42, 10, 40, 1, 1, 6});
+
+        int qtPerfil = 1 + (int) Math.min(200, -Math.log(1 - random.nextDouble()) * 12);
+        int qtBiometria = qtPerfil - random.nextInt(Math.max(1, qtPerfil / 5 + 1));
+        int qtDeficiencia = random.nextInt(20) == 0 ? 1 + random.nextInt(Math.max(1, qtPerfil / 4)) : 0;
+        int qtNomeSocial = random.nextInt(2000) == 0 ? 1 : 0;
+
+        // 16, 17 e 70+ anos votam facultativamente
+        boolean facultativo = fx <= 1 || CD_FAIXA_ETARIA[fx] >= 7000;
+
+        texto(sb, "17/10/2026");
+        texto(sb, "08:00:00");
+        numero(sb, 2026);
+        texto(sb, uf);
+        numero(sb, codCidade);
+        texto(sb, "MUNICIPIO " + codCidade);
+        numero(sb, nrZona);
+        numero(sb, nrSecao);
+        numero(sb, nrLocal);
+        texto(sb, "ESCOLA " + nrLocal);
+        numero(sb, CD_GENERO[g]);
+        texto(sb, DS_GENERO[g]);
+        numero(sb, CD_ESTADO_CIVIL[ec]);
+        texto(sb, DS_ESTADO_CIVIL[ec]);
+        numero(sb, CD_FAIXA_ETARIA[fx]);
+        texto(sb, DS_FAIXA_ETARIA[fx]);
+        numero(sb, esc + 1);
+        texto(sb, DS_ESCOLARIDADE[esc]);
+        numero(sb, raca + 1);
+        texto(sb, DS_RACA_COR[raca]);
+        // identidade de gênero quase sempre nula; quilombola às vezes "não se aplica"
+        if (random.nextInt(50) == 0) {
+            numero(sb, -3);
+            texto(sb, "#NE");
+        } else {
+            numero(sb, -1);
+            texto(sb, "#NULO");
+        }
+        if (random.nextInt(10) == 0) {
+            numero(sb, -3);
+            texto(sb, "#NE");
+        } else {
+            numero(sb, 2);
+            texto(sb, "NÃO");
+        }
+        numero(sb, 2);
+        texto(sb, "NÃO");
+        texto(sb, facultativo ? "FACULTATIVO" : "OBRIGATÓRIO");
+        numero(sb, qtPerfil);
+        numero(sb, qtBiometria);
+        numero(sb, qtDeficiencia);
+        numero(sb, qtNomeSocial);
+
+        sb.setLength(sb.length() - 1); // último ';'
+        return sb.toString();
+    }
+
+    /**
+     * Escreve o cabeçalho e as linhas no destino.
+     */
+    public void escrever(Writer saida, long linhas) throws IOException {
+        saida.write(CABECALHO);
+        saida.write('\n');
+        for (long i = 0; i < linhas; i++) {
+            saida.write(proximaLinha());
+            saida.write('\n');
+        }
+    }
+
+    /**
+     * Gera um arquivo CSV completo (ISO-8859-1, como o do TSE).
+     *
+     * @param arquivo Caminho do CSV
+     * @param linhas Quantidade de linhas de dados
+     * @param semente Semente do gerador
+     */
+    public static void gerarCsv(String arquivo, long linhas, long semente) throws IOException {
+        gerarCsv(arquivo, "SP", linhas, semente);
+    }
+
+    /**
+     * Gera um arquivo CSV completo do estado (ISO-8859-1, como o do TSE).
+     */
+    public static void gerarCsv(String arquivo, String uf, long linhas, long semente) throws IOException {
+        gravarComTroca(arquivo, saida -> {
+            Writer texto = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.ISO_8859_1), 1 << 16);
+            new GeradorDadosTse(semente, uf, linhas).escrever(texto, linhas);
+            texto.flush();
+        });
+    }
+
+    /**
+     * Gera um ZIP com o CSV dentro, no formato do download do TSE.
+     *
+     * @param arquivoZip Caminho do ZIP
+     * @param nomeCsv Nome da entrada CSV dentro do ZIP
+     */
+    public static void gerarZip(String arquivoZip, String nomeCsv, String uf,
+                                long linhas, long semente) throws IOException {
+        gravarComTroca(arquivoZip, saida -> {
+            ZipOutputStream zip = new ZipOutputStream(saida);
+            zip.putNextEntry(new ZipEntry(nomeCsv));
+            Writer texto = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.ISO_8859_1), 1 << 16);
+            new GeradorDadosTse(semente, uf, linhas).escrever(texto, linhas);
+            texto.flush();
+            zip.closeEntry();
+            zip.finish();
+        });
+    }
+
+    /**
+     * Gera os dados sintéticos de um estado em dados/, com os nomes que o
+     * AppService usa com -DarquivosLocais=true (ver AppService.setUsarArquivosLocais):
+     *
+     *   java -cp target/classes unitins.br.GeradorDadosTse UF LINHAS [SEMENTE] [zip]
+     *
+     * LINHAS vai de 10.000 a 500.000.000 (aceita sufixos K e M, ex: 2M).
+     * Com "zip" grava dados/perfil_eleitor_secao_UF.zip; sem ele grava
+     * dados/perfil_eleitor_secao_ATUAL_UF.csv.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Uso: GeradorDadosTse UF LINHAS [SEMENTE] [zip]");
+            System.out.println("     LINHAS de 10K a 500M (ex: 50000, 2M)");
+            return;
+        }
+
+        String uf = args[0].toUpperCase();
+        long linhas;
+        long semente = 1;
+        boolean zip = false;
+        try {
+            linhas = lerQuantidade(args[1]);
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].equalsIgnoreCase("zip")) {
+                    zip = true;
+                } else {
+                    semente = Long.parseLong(args[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Número inválido: " + e.getMessage());
+            return;
+        }
+
+        if (linhas < MINIMO_LINHAS || linhas > MAXIMO_LINHAS) {
+            System.out.printf("LINHAS deve estar entre %,d e %,d%n", MINIMO_LINHAS, MAXIMO_LINHAS);
+            return;
+        }
+
+        String nomeCsv = "perfil_eleitor_secao_ATUAL_" + uf + ".csv";
+        String destino = zip ? "dados/perfil_eleitor_secao_" + uf + ".zip" : "dados/" + nomeCsv;
+
+        long inicio = System.currentTimeMillis();
+        try {
+            if (zip) {
+                gerarZip(destino, nomeCsv, uf, linhas, semente);
+            } else {
+                gerarCsv(destino, uf, linhas, semente);
+            }
+        } catch (IOException e) {
+            Logger.erro("Erro ao gerar dados sintéticos: " + e.getMessage());
+            return;
+        }
+
+        long tempo = System.currentTimeMillis() - inicio;
+        Logger.registrar(tempo, "Dados sintéticos gerados: %s (%,d linhas, semente %d, %.1f MB)",
+                destino, linhas, semente, Arquivo.tamanho(destino) / 1048576.0);
+
+        // o snapshot e o CSV extraído de uma carga anterior não valem para os dados novos
+        // (a DT_GERACAO sintética é sempre a mesma, então o snapshot não perceberia a troca)
+        try {
+            Files.deleteIfExists(Paths.get("dados/perfil_eleitor_secao_" + uf + ".snap"));
+            if (zip) {
+                Files.deleteIfExists(Paths.get("dados/" + nomeCsv));
+            }
+        } catch (IOException e) {
+            Logger.erro("Não foi possível remover arquivos antigos: " + e.getMessage());
+        }
+
+        System.out.println("Para carregar sem baixar, rode o App com -DarquivosLocais=true");
+    }
+
+    // ========== Auxiliares ==========
+
+    // município -> zonas -> seções -> linhas de perfil, sempre em ordem crescente.
+    // Cada município recebe ~linhasPorCidade linhas, repartidas entre suas zonas.
+    private void avancarSecao() {
+        while (linhasRestantesSecao == 0) {
+            if (linhasRestantesCidade <= 0) {
+                cidade++;
+                codCidade = 10000 + cidade * 7;
+                linhasRestantesCidade = linhasPorCidade;
+                zonasRestantes = zonasPorCidade;
+            }
+            // nova zona no começo do município e quando a fatia da zona atual acaba
+            if (zonasRestantes > 0
+                    && linhasRestantesCidade <= (long) zonasRestantes * linhasPorCidade / zonasPorCidade) {
+                zonasRestantes--;
+                nrZona++;
+                nrSecao = 0;
+                nrLocal = 1000;
+            }
+            nrSecao++;
+            // cerca de 8 seções por local de votação
+            if (random.nextInt(8) == 0) {
+                nrLocal += 10 + random.nextInt(10);
+            }
+            linhasRestantesSecao = 20 + random.nextInt(80);
+            linhasRestantesCidade -= linhasRestantesSecao;
+        }
+    }
+
+    private interface Gravacao {
+        void gravar(OutputStream saida) throws IOException;
+    }
+
+    // grava num temporário e troca no final, para nunca deixar arquivo pela metade
+    private static void gravarComTroca(String arquivo, Gravacao gravacao) throws IOException {
+        Path caminho = Paths.get(arquivo);
+        if (caminho.getParent() != null) {
+            Files.createDirectories(caminho.getParent());
+        }
+
+        Path temporario = Paths.get(arquivo + ".tmp");
+        try (OutputStream saida = new BufferedOutputStream(new FileOutputStream(temporario.toFile()), 1 << 16)) {
+            gravacao.gravar(saida);
+        }
+        Files.move(temporario, caminho, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // "50000", "50K", "2M"
+    private static long lerQuantidade(String texto) {
+        String valor = texto.trim().toUpperCase().replace("_", "").replace(".", "");
+        long multiplicador = 1;
+        if (valor.endsWith("K")) {
+            multiplicador = 1_000L;
+            valor = valor.substring(0, valor.length() - 1);
+        } else if (valor.endsWith("M")) {
+            multiplicador = 1_000_000L;
+            valor = valor.substring(0, valor.length() - 1);
+        }
+        return Long.parseLong(valor) * multiplicador;
+    }
+
+    private int escolher(int[] pesos) {
+        int soma = 0;
+        for (int peso : pesos) {
+            soma += peso;
+        }
+        int sorteio = random.nextInt(soma);
+        for (int i = 0; i < pesos.length; i++) {
+            sorteio -= pesos[i];
+            if (sorteio < 0) return i;
+        }
+        return pesos.length - 1;
+    }
+
+    private static void texto(StringBuilder sb, String valor) {
+        sb.append('"').append(valor).append('"').append(';');
+    }
+
+    private static void numero(StringBuilder sb, int valor) {
+        sb.append(valor).append(';');
+    }
+}
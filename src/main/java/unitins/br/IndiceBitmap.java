@@ -0,0 +1,121 @@
+package unitins.br;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice de bitmaps sobre as dimensões de perfil do armazém colunar.
+ *
+ * Para cada valor distinto de cada dimensão guarda o conjunto de linhas que
+ * têm aquele valor (BitmapCompactado). Uma consulta com vários filtros vira
+ * união (OU) dos valores aceitos dentro de cada dimensão e interseção (E)
+ * entre as dimensões; no fim só as linhas que sobraram são somadas.
+ *
+ * Além do perfil, cidade e zona também são indexadas para restringir a
+ * abrangência da consulta.
+ */
+public class IndiceBitmap {
+
+    // Dimensões indexadas: as de perfil (posição = ordinal de DimensaoPerfil), depois cidade e zona
+    private static final int CIDADE = DimensaoPerfil.TODAS.length;     // codCidade
+    private static final int ZONA = CIDADE + 1;                         // nrZona
+    private static final int QTD_DIMENSOES = ZONA + 1;
+
+    // valores distintos de cada dimensão (em ordem crescente) e o bitmap de cada um
+    private final int[][] valores = new int[QTD_DIMENSOES][];
+    private final BitmapCompactado[][] bitmaps = new BitmapCompactado[QTD_DIMENSOES][];
+
+    /**
+     * Monta os bitmaps percorrendo as linhas do armazém em ordem.
+     */
+    public IndiceBitmap(ArmazemColunar armazem) {
+        int linhas = armazem.tamanho();
+
+        int[][] colunas = new int[QTD_DIMENSOES][];
+        for (DimensaoPerfil dimensao : DimensaoPerfil.TODAS) {
+            colunas[dimensao.ordinal()] = dimensao.coluna(armazem);
+        }
+        colunas[CIDADE] = armazem.codCidade;
+        colunas[ZONA] = armazem.nrZona;
+
+        for (int d = 0; d < QTD_DIMENSOES; d++) {
+            int[] coluna = colunas[d];
+            int[] distintos = Vetores.distintos(coluna, 0, linhas);
+            BitmapCompactado[] porValor = new BitmapCompactado[distintos.length];
+            for (int v = 0; v < porValor.length; v++) {
+                porValor[v] = new BitmapCompactado();
+            }
+
+            for (int i = 0; i < linhas; i++) {
+                porValor[Arrays.binarySearch(distintos, coluna[i])].adicionar(i);
+            }
+            for (BitmapCompactado bitmap : porValor) {
+                bitmap.compactar();
+            }
+
+            valores[d] = distintos;
+            bitmaps[d] = porValor;
+        }
+    }
+
+    /**
+     * Linhas cujo valor na dimensão é aceito (união dos bitmaps dos valores aceitos).
+     *
+     * @param aceita Recebe o valor da dimensão (código do dicionário ou cd_*)
+     */
+    public BitmapCompactado linhas(DimensaoPerfil dimensao, IntPredicate aceita) {
+        int d = dimensao.ordinal();
+        BitmapCompactado resultado = new BitmapCompactado();
+        int[] distintos = valores[d];
+        for (int v = 0; v < distintos.length; v++) {
+            if (aceita.test(distintos[v])) {
+                resultado = BitmapCompactado.ou(resultado, bitmaps[d][v]);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Linhas da cidade (vazio se ela não existe).
+     */
+    public BitmapCompactado linhasDaCidade(int codCidade) {
+        return linhas(CIDADE, codCidade);
+    }
+
+    /**
+     * Linhas com esse número de zona, em qualquer cidade (vazio se não existe).
+     */
+    public BitmapCompactado linhasDaZona(int nrZona) {
+        return linhas(ZONA, nrZona);
+    }
+
+    /**
+     * Quantidade total de bitmaps (valores distintos somados de todas as dimensões).
+     */
+    public int totalBitmaps() {
+        int total = 0;
+        for (int[] distintos : valores) {
+            total += distintos.length;
+        }
+        return total;
+    }
+
+    /**
+     * Estimativa de bytes de heap de todos os bitmaps do índice.
+     */
+    public long bytesEstimados() {
+        long total = 0;
+        for (int d = 0; d < QTD_DIMENSOES; d++) {
+            total += 16 + 4L * valores[d].length;
+            for (BitmapCompactado bitmap : bitmaps[d]) {
+                total += bitmap.bytesEstimados();
+            }
+        }
+        return total;
+    }
+
+    private BitmapCompactado linhas(int dimensao, int valor) {
+        int pos = Arrays.binarySearch(valores[dimensao], valor);
+        return pos < 0 ? new BitmapCompactado() : bitmaps[dimensao][pos];
+    }
+}
@@ -0,0 +1,208 @@
+package unitins.br;
+
+import java.util.Arrays;
+
+/**
+ * Índice cidade -> zona -> seção sobre um armazém agrupado
+ * (ArmazemColunar.agrupar): como as linhas de cada cidade, zona e seção
+ * ficam juntas, cada entrada guarda só a faixa [início, fim) das linhas,
+ * e a consulta vira uma varredura sequencial desse trecho das colunas.
+ *
+ * Os três níveis são vetores ordenados em sequência (busca binária dentro
+ * do trecho do nível de cima), sem um array de linhas por entrada:
+ *
+ *   cidades[c]  -> linhas inicioCidade[c] .. inicioCidade[c + 1]
+ *                  zonas   primeiraZona[c] .. primeiraZona[c + 1]
+ *   zonas[z]    -> linhas inicioZona[z] .. inicioZona[z + 1]
+ *                  seções  primeiraSecao[z] .. primeiraSecao[z + 1]
+ *   secoes[s]   -> linhas inicioSecao[s] .. inicioSecao[s + 1]
+ *
+ * As faixas são devolvidas num long (início nos 32 bits de cima, fim nos
+ * de baixo); SEM_FAIXA quando a chave não existe.
+ */
+public class IndiceFaixas {
+
+    public static final long SEM_FAIXA = -1L;
+
+    private final int[] cidades;
+    private final int[] inicioCidade;
+    private final int[] primeiraZona;
+
+    private final int[] zonas;
+    private final int[] inicioZona;
+    private final int[] primeiraSecao;
+
+    private final int[] secoes;
+    private final int[] inicioSecao;
+
+    /**
+     * Monta o índice numa passada pelas linhas (o armazém precisa estar agrupado).
+     */
+    public IndiceFaixas(ArmazemColunar armazem) {
+        int linhas = armazem.tamanho();
+        int[] codCidade = armazem.codCidade;
+        int[] nrZona = armazem.nrZona;
+        int[] nrSecao = armazem.nrSecao;
+
+        // contando as mudanças para alocar cada nível com o tamanho exato
+        int qtdCidades = 0;
+        int qtdZonas = 0;
+        int qtdSecoes = 0;
+        for (int i = 0; i < linhas; i++) {
+            boolean novaCidade = i == 0 || codCidade[i] != codCidade[i - 1];
+            boolean novaZona = novaCidade || nrZona[i] != nrZona[i - 1];
+            if (novaCidade) qtdCidades++;
+            if (novaZona) qtdZonas++;
+            if (novaZona || nrSecao[i] != nrSecao[i - 1]) qtdSecoes++;
+        }
+
+        cidades = new int[qtdCidades];
+        inicioCidade = new int[qtdCidades + 1];
+        primeiraZona = new int[qtdCidades + 1];
+        zonas = new int[qtdZonas];
+        inicioZona = new int[qtdZonas + 1];
+        primeiraSecao = new int[qtdZonas + 1];
+        secoes = new int[qtdSecoes];
+        inicioSecao = new int[qtdSecoes + 1];
+
+        int c = 0;
+        int z = 0;
+        int s = 0;
+        for (int i = 0; i < linhas; i++) {
+            boolean novaCidade = i == 0 || codCidade[i] != codCidade[i - 1];
+            boolean novaZona = novaCidade || nrZona[i] != nrZona[i - 1];
+            if (novaCidade) {
+                cidades[c] = codCidade[i];
+                inicioCidade[c] = i;
+                primeiraZona[c] = z;
+                c++;
+            }
+            if (novaZona) {
+                zonas[z] = nrZona[i];
+                inicioZona[z] = i;
+                primeiraSecao[z] = s;
+                z++;
+            }
+            if (novaZona || nrSecao[i] != nrSecao[i - 1]) {
+                secoes[s] = nrSecao[i];
+                inicioSecao[s] = i;
+                s++;
+            }
+        }
+        inicioCidade[c] = linhas;
+        primeiraZona[c] = z;
+        inicioZona[z] = linhas;
+        primeiraSecao[z] = s;
+        inicioSecao[s] = linhas;
+    }
+
+    /**
+     * Faixa de linhas de uma cidade, ou SEM_FAIXA.
+     */
+    public long faixaCidade(int codCidade) {
+        int c = posicaoCidade(codCidade);
+        return c < 0 ? SEM_FAIXA : faixa(inicioCidade[c], inicioCidade[c + 1]);
+    }
+
+    /**
+     * Faixa de linhas de uma zona da cidade, ou SEM_FAIXA.
+     */
+    public long faixaZona(int codCidade, int nrZona) {
+        int z = posicaoZona(codCidade, nrZona);
+        return z < 0 ? SEM_FAIXA : faixa(inicioZona[z], inicioZona[z + 1]);
+    }
+
+    /**
+     * Faixa de linhas de uma seção, ou SEM_FAIXA.
+     */
+    public long faixaSecao(int codCidade, int nrZona, int nrSecao) {
+        int z = posicaoZona(codCidade, nrZona);
+        if (z < 0) {
+            return SEM_FAIXA;
+        }
+        int s = Arrays.binarySearch(secoes, primeiraSecao[z], primeiraSecao[z + 1], nrSecao);
+        return s < 0 ? SEM_FAIXA : faixa(inicioSecao[s], inicioSecao[s + 1]);
+    }
+
+    public static int inicio(long faixa) {
+        return (int) (faixa >>> 32);
+    }
+
+    public static int fim(long faixa) {
+        return (int) faixa;
+    }
+
+    /**
+     * Quantidade de cidades indexadas.
+     */
+    public int totalCidades() {
+        return cidades.length;
+    }
+
+    /**
+     * Códigos das cidades indexadas, em ordem crescente (o próprio vetor, não alterar).
+     */
+    public int[] cidades() {
+        return cidades;
+    }
+
+    /**
+     * Bytes dos vetores do índice (proporcional a cidades + zonas + seções).
+     */
+    public long bytesEstimados() {
+        return 4L * (cidades.length + inicioCidade.length + primeiraZona.length
+                + zonas.length + inicioZona.length + primeiraSecao.length
+                + secoes.length + inicioSecao.length);
+    }
+
+    // ========== Acesso por posição (montagem do cubo) ==========
+
+    int totalZonas() {
+        return zonas.length;
+    }
+
+    /** Primeira zona da cidade c; as dela vão até primeiraZona(c + 1). */
+    int primeiraZona(int c) {
+        return primeiraZona[c];
+    }
+
+    int zona(int z) {
+        return zonas[z];
+    }
+
+    /** Primeira linha da zona z; as dela vão até inicioZona(z + 1). */
+    int inicioZona(int z) {
+        return inicioZona[z];
+    }
+
+    /** Primeira seção da zona z; as dela vão até primeiraSecao(z + 1). */
+    int primeiraSecao(int z) {
+        return primeiraSecao[z];
+    }
+
+    int secao(int s) {
+        return secoes[s];
+    }
+
+    /** Primeira linha da seção s; as dela vão até inicioSecao(s + 1). */
+    int inicioSecao(int s) {
+        return inicioSecao[s];
+    }
+
+    private int posicaoCidade(int codCidade) {
+        return Arrays.binarySearch(cidades, codCidade);
+    }
+
+    private int posicaoZona(int codCidade, int nrZona) {
+        int c = posicaoCidade(codCidade);
+        if (c < 0) {
+            return -1;
+        }
+        int z = Arrays.binarySearch(zonas, primeiraZona[c], primeiraZona[c + 1], nrZona);
+        return z < 0 ? -1 : z;
+    }
+
+    private static long faixa(int inicio, int fim) {
+        return ((long) inicio << 32) | fim;
+    }
+}
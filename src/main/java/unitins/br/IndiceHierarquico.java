@@ -0,0 +1,156 @@
+package unitins.br;
+
+/**
+ * Índice composto em níveis: cidade -> zona -> (seção | local de votação).
+ *
+ * A árvore por cidade só reduz a busca ao município. Nas consultas por
+ * LOCAL e SECAO ainda era preciso varrer todos os registros da cidade
+ * (centenas de milhares em São Paulo capital). Aqui cada cidade guarda
+ * suas zonas e cada zona guarda dois IndiceInteiro (vetores ordenados
+ * de chaves com as linhas de cada uma), um por seção e outro por local
+ * de votação, então a consulta chega direto nos poucos registros que
+ * interessam.
+ *
+ * Os níveis de cidade e zona são vetores ordenados (busca binária) e os
+ * níveis de seção/local são IndiceInteiro (também busca binária, sem
+ * converter as chaves para Integer). Todos guardam linhas do armazém.
+ */
+public class IndiceHierarquico {
+
+    /**
+     * Sub-índice de uma zona eleitoral dentro de uma cidade.
+     */
+    static class NivelZona {
+        final int nrZona;
+        final IndiceInteiro porSecao;
+        final IndiceInteiro porLocal;
+
+        NivelZona(int nrZona, int[] linhas, ArmazemColunar armazem) {
+            this.nrZona = nrZona;
+            this.porSecao = IndiceInteiro.construir(armazem.nrSecao, linhas, linhas.length);
+            this.porLocal = IndiceInteiro.construir(armazem.nrLocalVotacao, linhas, linhas.length);
+        }
+    }
+
+    /**
+     * Sub-índice de uma cidade: zonas ordenadas por número.
+     */
+    static class NivelCidade {
+        final int codCidade;
+        final int[] zonas; // números das zonas em ordem crescente
+        final NivelZona[] niveis; // niveis[i] corresponde a zonas[i]
+
+        NivelCidade(int codCidade, int[] linhas, ArmazemColunar armazem) {
+            this.codCidade = codCidade;
+
+            IndiceInteiro porZona = IndiceInteiro.construir(armazem.nrZona, linhas, linhas.length);
+
+            this.zonas = porZona.chaves();
+            this.niveis = new NivelZona[zonas.length];
+            for (int i = 0; i < zonas.length; i++) {
+                niveis[i] = new NivelZona(zonas[i], porZona.grupo(i), armazem);
+            }
+        }
+
+        NivelZona zona(int nrZona) {
+            int pos = buscaBinaria(zonas, nrZona);
+            return pos < 0 ? null : niveis[pos];
+        }
+    }
+
+    private final int[] cidades; // códigos das cidades em ordem crescente
+    private final NivelCidade[] niveis; // niveis[i] corresponde a cidades[i]
+
+    /**
+     * Monta o índice a partir da árvore por cidade já construída.
+     *
+     * @param arvorePorCidade Árvore com as linhas agrupadas por código de cidade
+     * @param armazem Armazém com as colunas de zona, seção e local
+     */
+    public IndiceHierarquico(ArvoreBinariaADT<Integer> arvorePorCidade, ArmazemColunar armazem) {
+        Comparable<Integer>[] chaves = arvorePorCidade.emOrdem();
+
+        this.cidades = new int[chaves.length];
+        this.niveis = new NivelCidade[chaves.length];
+        for (int i = 0; i < chaves.length; i++) {
+            Integer cidade = (Integer) chaves[i];
+            cidades[i] = cidade;
+            niveis[i] = new NivelCidade(cidade, arvorePorCidade.buscar(cidade), armazem);
+        }
+    }
+
+    /**
+     * Monta o índice a partir do índice primitivo por cidade.
+     */
+    public IndiceHierarquico(IndiceInteiro indicePorCidade, ArmazemColunar armazem) {
+        this.cidades = indicePorCidade.chaves();
+        this.niveis = new NivelCidade[cidades.length];
+        for (int i = 0; i < cidades.length; i++) {
+            niveis[i] = new NivelCidade(cidades[i], indicePorCidade.grupo(i), armazem);
+        }
+    }
+
+    /**
+     * Retorna as linhas dos registros de uma seção eleitoral.
+     *
+     * @return Linhas da seção, ou null se cidade/zona/seção não existir
+     */
+    public int[] buscarSecao(int codCidade, int nrZona, int nrSecao) {
+        NivelZona zona = buscarZona(codCidade, nrZona);
+        return zona == null ? null : zona.porSecao.buscar(nrSecao);
+    }
+
+    /**
+     * Retorna as linhas dos registros de um local de votação.
+     *
+     * @return Linhas do local, ou null se cidade/zona/local não existir
+     */
+    public int[] buscarLocal(int codCidade, int nrZona, int nrLocal) {
+        NivelZona zona = buscarZona(codCidade, nrZona);
+        return zona == null ? null : zona.porLocal.buscar(nrLocal);
+    }
+
+    /**
+     * Códigos das cidades em ordem crescente (o próprio vetor, não alterar).
+     */
+    int[] cidades() {
+        return cidades;
+    }
+
+    /**
+     * Zonas (com as seções e locais) da i-ésima cidade de cidades().
+     */
+    NivelCidade nivel(int i) {
+        return niveis[i];
+    }
+
+    /**
+     * Retorna a quantidade de cidades indexadas.
+     */
+    public int totalCidades() {
+        return cidades.length;
+    }
+
+    private NivelZona buscarZona(int codCidade, int nrZona) {
+        int pos = buscaBinaria(cidades, codCidade);
+        return pos < 0 ? null : niveis[pos].zona(nrZona);
+    }
+
+    private static int buscaBinaria(int[] vetor, int valor) {
+        int inicio = 0;
+        int fim = vetor.length - 1;
+
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (vetor[meio] < valor) {
+                inicio = meio + 1;
+            } else if (vetor[meio] > valor) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+
+        return -1;
+    }
+}
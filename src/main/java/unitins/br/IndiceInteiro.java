@@ -0,0 +1,200 @@
+package unitins.br;
+
+import java.util.Arrays;
+
+/**
+ * Índice de chave int (código de cidade, zona, seção, local) sem Integer.
+ *
+ * As árvores do TAD são genéricas: cada inserir/buscar converte a chave
+ * para Integer e cada comparação passa por compareTo. Aqui as chaves
+ * distintas ficam num int[] ordenado e a busca é binária sobre ints;
+ * grupos[i] tem as linhas (no armazém) dos registros de chaves[i], com o
+ * tamanho exato.
+ *
+ * O índice é montado de uma vez depois da carga (não tem inserir).
+ */
+public class IndiceInteiro {
+
+    private final int[] chaves;                // chaves distintas em ordem crescente
+    private final int[][] grupos;              // grupos[i] = linhas de chaves[i]
+    private final int totalRegistros;
+
+    private IndiceInteiro(int[] chaves, int[][] grupos, int totalRegistros) {
+        this.chaves = chaves;
+        this.grupos = grupos;
+        this.totalRegistros = totalRegistros;
+    }
+
+    /**
+     * Agrupa as linhas 0 .. total - 1 pela chave.
+     *
+     * @param colunaChave Coluna com a chave de cada linha (ex: codCidade)
+     * @param total Quantidade de linhas válidas na coluna
+     */
+    public static IndiceInteiro construir(int[] colunaChave, int total) {
+        return construir(colunaChave, null, total);
+    }
+
+    /**
+     * Agrupa as linhas pela chave, mantendo a ordem recebida dentro de
+     * cada grupo.
+     *
+     * 1. Dá a cada chave nova um id de grupo (tabela de espalhamento com
+     *    endereçamento aberto sobre int[], sem HashMap/Integer) e conta.
+     * 2. Ordena só as chaves distintas (chave e id juntos num long).
+     * 3. Aloca os grupos com o tamanho exato e preenche.
+     *
+     * @param colunaChave Coluna com a chave de cada linha do armazém
+     * @param linhas Linhas a indexar (ex: as de uma cidade), ou null para 0 .. total - 1
+     * @param total Quantidade de linhas a indexar
+     */
+    public static IndiceInteiro construir(int[] colunaChave, int[] linhas, int total) {
+        // 1. agrupando: cada linha recebe o id do seu grupo (ordem de aparição)
+        TabelaGrupos tabela = new TabelaGrupos();
+        int[] grupoDaLinha = new int[total];
+        for (int i = 0; i < total; i++) {
+            int linha = linhas == null ? i : linhas[i];
+            grupoDaLinha[i] = tabela.grupo(colunaChave[linha]);
+        }
+        int distintas = tabela.qtdGrupos;
+
+        // 2. ordenando as chaves distintas; o id vai nos 32 bits de baixo
+        long[] chaveEGrupo = new long[distintas];
+        for (int g = 0; g < distintas; g++) {
+            chaveEGrupo[g] = ((long) tabela.chaveDoGrupo[g] << 32) | g;
+        }
+        Arrays.sort(chaveEGrupo);
+
+        int[] chaves = new int[distintas];
+        int[] posicaoDoGrupo = new int[distintas];
+        for (int p = 0; p < distintas; p++) {
+            chaves[p] = (int) (chaveEGrupo[p] >> 32);
+            posicaoDoGrupo[(int) chaveEGrupo[p]] = p;
+        }
+
+        // 3. arrays com tamanho exato, mantendo a ordem do arquivo
+        int[][] grupos = new int[distintas][];
+        for (int g = 0; g < distintas; g++) {
+            grupos[posicaoDoGrupo[g]] = new int[tabela.contagem[g]];
+        }
+        int[] preenchidos = new int[distintas];
+        for (int i = 0; i < total; i++) {
+            int p = posicaoDoGrupo[grupoDaLinha[i]];
+            grupos[p][preenchidos[p]++] = linhas == null ? i : linhas[i];
+        }
+
+        return new IndiceInteiro(chaves, grupos, total);
+    }
+
+    /**
+     * Tabela chave -> id do grupo com endereçamento aberto (sondagem linear).
+     * As posições guardam id + 1; 0 é posição livre.
+     */
+    private static class TabelaGrupos {
+        int[] posicoes = new int[64];
+        int[] chaveDoGrupo = new int[32];
+        int[] contagem = new int[32];
+        int qtdGrupos;
+
+        int grupo(int chave) {
+            int mascara = posicoes.length - 1;
+            int p = espalhar(chave) & mascara;
+            while (posicoes[p] != 0) {
+                int g = posicoes[p] - 1;
+                if (chaveDoGrupo[g] == chave) {
+                    contagem[g]++;
+                    return g;
+                }
+                p = (p + 1) & mascara;
+            }
+
+            if (qtdGrupos == chaveDoGrupo.length) {
+                chaveDoGrupo = Arrays.copyOf(chaveDoGrupo, qtdGrupos * 2);
+                contagem = Arrays.copyOf(contagem, qtdGrupos * 2);
+            }
+            int g = qtdGrupos++;
+            chaveDoGrupo[g] = chave;
+            contagem[g] = 1;
+            posicoes[p] = g + 1;
+
+            // mantendo a ocupação abaixo de 1/2
+            if (qtdGrupos * 2 > posicoes.length) {
+                redimensionar();
+            }
+            return g;
+        }
+
+        private void redimensionar() {
+            posicoes = new int[posicoes.length * 2];
+            int mascara = posicoes.length - 1;
+            for (int g = 0; g < qtdGrupos; g++) {
+                int p = espalhar(chaveDoGrupo[g]) & mascara;
+                while (posicoes[p] != 0) {
+                    p = (p + 1) & mascara;
+                }
+                posicoes[p] = g + 1;
+            }
+        }
+
+        // códigos de cidade/seção são próximos entre si; mistura os bits
+        private static int espalhar(int chave) {
+            int h = chave * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * Monta o índice com linhas já agrupadas (ex: lidas de um snapshot).
+     *
+     * @param chavesOrdenadas Chaves distintas em ordem crescente
+     * @param grupos grupos[i] = linhas de chavesOrdenadas[i] (tamanho exato)
+     */
+    public static IndiceInteiro deGrupos(int[] chavesOrdenadas, int[][] grupos) {
+        int total = 0;
+        for (int[] grupo : grupos) {
+            total += grupo.length;
+        }
+        return new IndiceInteiro(chavesOrdenadas, grupos, total);
+    }
+
+    /**
+     * Linhas da chave (array com o tamanho exato, não alterar), ou null se não existir.
+     */
+    public int[] buscar(int chave) {
+        int pos = Arrays.binarySearch(chaves, chave);
+        return pos < 0 ? null : grupos[pos];
+    }
+
+    /**
+     * Linhas do i-ésimo grupo, na ordem das chaves.
+     */
+    public int[] grupo(int i) {
+        return grupos[i];
+    }
+
+    public boolean contem(int chave) {
+        return Arrays.binarySearch(chaves, chave) >= 0;
+    }
+
+    /**
+     * Quantidade de chaves distintas.
+     */
+    public int tamanho() {
+        return chaves.length;
+    }
+
+    public int totalRegistros() {
+        return totalRegistros;
+    }
+
+    public boolean estaVazio() {
+        return chaves.length == 0;
+    }
+
+    /**
+     * Chaves distintas em ordem crescente (o próprio vetor do índice, não alterar).
+     */
+    public int[] chaves() {
+        return chaves;
+    }
+}
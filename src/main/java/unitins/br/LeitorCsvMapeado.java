@@ -0,0 +1,408 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Leitor do CSV do TSE que mapeia o arquivo em memória (FileChannel.map)
+ * e separa os campos direto nos bytes, sem readLine(), split() nem
+ * PerfilEleitor intermediário.
+ *
+ * - Números (QT_ELEITORES_PERFIL, NR_ZONA...) são convertidos byte a byte.
+ * - Textos são procurados numa tabela de bytes por coluna; só quando o
+ *   valor aparece pela primeira vez é criada uma String (ISO-8859-1).
+ * - Cada linha é gravada no ArmazemColunar com adicionarCodificado().
+ *
+ * Na linha típica nenhuma alocação é feita.
+ *
+ * Também aceita um InputStream (carregarStream), por exemplo a entrada do
+ * ZIP sendo descompactada, usando o mesmo separador de campos sobre um
+ * buffer em memória.
+ */
+public class LeitorCsvMapeado {
+
+    private static final int TOTAL_CAMPOS = 31;
+
+    // Tamanho de cada janela mapeada (um MappedByteBuffer tem limite de 2 GB)
+    private static final long TAMANHO_JANELA = 256L * 1024 * 1024;
+
+    // Tamanho do buffer da leitura por stream (ZIP/download)
+    private static final int TAMANHO_BUFFER_STREAM = 1024 * 1024;
+
+    private final ArmazemColunar armazem;
+    private final ArmazemColunar.ColunaTexto[] colunasTexto;
+    private final TabelaBytes[] tabelas;
+
+    // valores da linha atual (reaproveitado a cada linha)
+    private final int[] valores = new int[TOTAL_CAMPOS];
+
+    // buffer para copiar os bytes de um campo de texto
+    private byte[] campo = new byte[256];
+
+    private long linhasIgnoradas;
+
+    public LeitorCsvMapeado(ArmazemColunar armazem) {
+        this.armazem = armazem;
+        this.colunasTexto = armazem.colunasTextoPorCampoCsv();
+        this.tabelas = new TabelaBytes[TOTAL_CAMPOS];
+        for (int c = 0; c < TOTAL_CAMPOS; c++) {
+            if (colunasTexto[c] != null) {
+                tabelas[c] = new TabelaBytes();
+            }
+        }
+    }
+
+    /**
+     * Lê o arquivo inteiro (pulando o cabeçalho) para o armazém.
+     *
+     * @param arquivo Caminho do CSV extraído
+     * @return Quantidade de bytes lidos
+     */
+    public long carregar(String arquivo) throws IOException {
+        Path caminho = Paths.get(arquivo);
+
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            carregarIntervalo(canal, 0, tamanhoArquivo, true);
+            return tamanhoArquivo;
+        }
+    }
+
+    /**
+     * Lê as linhas do trecho [inicio, fim) do arquivo para o armazém.
+     * O trecho deve começar no início de uma linha e terminar logo após
+     * um '\n' (ou no fim do arquivo).
+     *
+     * @param pularCabecalho true se a primeira linha do trecho é o cabeçalho
+     */
+    public void carregarIntervalo(FileChannel canal, long inicio, long fim, boolean pularCabecalho) throws IOException {
+        long posicao = inicio;
+        boolean cabecalho = pularCabecalho;
+
+        while (posicao < fim) {
+            long tamanhoJanela = Math.min(TAMANHO_JANELA, fim - posicao);
+            boolean ultimaJanela = posicao + tamanhoJanela == fim;
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanhoJanela);
+
+            int inicioJanela = 0;
+            if (cabecalho) {
+                inicioJanela = proximaLinha(buffer, 0, (int) tamanhoJanela);
+                cabecalho = false;
+            }
+
+            int consumido = processar(buffer, inicioJanela, (int) tamanhoJanela, ultimaJanela);
+            if (consumido == 0 && !ultimaJanela) {
+                throw new IOException("Linha maior que a janela de leitura na posição " + posicao);
+            }
+            posicao += consumido;
+        }
+    }
+
+    /**
+     * Lê o CSV de um stream (pulando o cabeçalho) para o armazém, sem
+     * gravar nada em disco. O stream não é fechado.
+     *
+     * @param entrada Stream com o conteúdo do CSV (ex: entrada do ZipInputStream)
+     * @return Quantidade de bytes lidos
+     */
+    public long carregarStream(InputStream entrada) throws IOException {
+        byte[] dados = new byte[TAMANHO_BUFFER_STREAM];
+        int ocupado = 0;
+        long totalBytes = 0;
+        boolean cabecalho = true;
+        boolean fimStream = false;
+
+        while (!fimStream) {
+            // completa o buffer
+            while (ocupado < dados.length) {
+                int lidos = entrada.read(dados, ocupado, dados.length - ocupado);
+                if (lidos < 0) {
+                    fimStream = true;
+                    break;
+                }
+                ocupado += lidos;
+                totalBytes += lidos;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(dados, 0, ocupado);
+            int inicio = 0;
+            if (cabecalho) {
+                inicio = proximaLinha(buffer, 0, ocupado);
+                cabecalho = false;
+            }
+
+            int consumido = processar(buffer, inicio, ocupado, fimStream);
+
+            if (consumido == 0 && ocupado == dados.length) {
+                // linha maior que o buffer: aumenta e continua lendo
+                byte[] maior = new byte[dados.length * 2];
+                System.arraycopy(dados, 0, maior, 0, ocupado);
+                dados = maior;
+                continue;
+            }
+
+            // move o pedaço da linha incompleta para o início do buffer
+            System.arraycopy(dados, consumido, dados, 0, ocupado - consumido);
+            ocupado -= consumido;
+        }
+
+        return totalBytes;
+    }
+
+    /**
+     * Armazém que recebe as linhas lidas.
+     */
+    public ArmazemColunar armazem() {
+        return armazem;
+    }
+
+    /**
+     * Quantidade de linhas descartadas por terem menos de 31 campos.
+     */
+    public long linhasIgnoradas() {
+        return linhasIgnoradas;
+    }
+
+    /**
+     * Processa as linhas completas de uma janela numa única passada:
+     * os campos são fechados ao encontrar ';' e a linha ao encontrar '\n'.
+     *
+     * @return Quantidade de bytes consumidos (até o fim da última linha completa)
+     */
+    private int processar(ByteBuffer buffer, int inicio, int fim, boolean ultimaJanela) {
+        int inicioLinha = inicio;
+        int inicioCampo = inicio;
+        int campoAtual = 0;
+        boolean entreAspas = false;
+
+        for (int i = inicio; i < fim; i++) {
+            byte b = buffer.get(i);
+
+            if (b == '"') {
+                entreAspas = !entreAspas;
+            } else if (b == ';' && !entreAspas) {
+                fecharCampo(buffer, campoAtual++, inicioCampo, i);
+                inicioCampo = i + 1;
+            } else if (b == '\n') {
+                // ignora \r do final (arquivos com quebra de linha do Windows)
+                int fimCampo = (i > inicioCampo && buffer.get(i - 1) == '\r') ? i - 1 : i;
+                fecharLinha(buffer, campoAtual, inicioCampo, fimCampo, i > inicioLinha);
+
+                inicioLinha = i + 1;
+                inicioCampo = i + 1;
+                campoAtual = 0;
+                entreAspas = false;
+            }
+        }
+
+        // linha incompleta no fim da janela: fica para a próxima
+        if (!ultimaJanela) {
+            return inicioLinha;
+        }
+
+        // última linha do arquivo sem '\n' no final
+        if (inicioLinha < fim) {
+            int fimCampo = buffer.get(fim - 1) == '\r' ? fim - 1 : fim;
+            fecharLinha(buffer, campoAtual, inicioCampo, fimCampo, true);
+        }
+        return fim;
+    }
+
+    /**
+     * Converte e guarda um campo; campos além do 31º são ignorados.
+     */
+    private void fecharCampo(ByteBuffer buffer, int coluna, int inicio, int fim) {
+        if (coluna >= TOTAL_CAMPOS) {
+            return;
+        }
+
+        if (colunasTexto[coluna] != null) {
+            valores[coluna] = codificarTexto(buffer, coluna, inicio, fim);
+        } else {
+            valores[coluna] = converterInteiro(buffer, inicio, fim);
+        }
+    }
+
+    /**
+     * Fecha o último campo e grava a linha, se ela tiver os 31 campos.
+     */
+    private void fecharLinha(ByteBuffer buffer, int campoAtual, int inicioCampo, int fimCampo, boolean temConteudo) {
+        if (!temConteudo) {
+            return; // linha em branco
+        }
+
+        fecharCampo(buffer, campoAtual, inicioCampo, fimCampo);
+
+        if (campoAtual + 1 < TOTAL_CAMPOS) {
+            linhasIgnoradas++;
+            return;
+        }
+
+        armazem.adicionarCodificado(valores);
+    }
+
+    /**
+     * Converte um campo numérico direto dos bytes.
+     * Mesmas regras de PerfilEleitor.parseIntSeguro: vazio/#NULO = -1,
+     * #NE = -3, valor inválido = -1.
+     */
+    static int converterInteiro(ByteBuffer buffer, int inicio, int fim) {
+        // remove aspas e espaços das pontas
+        while (inicio < fim && ehAspasOuEspaco(buffer.get(inicio))) inicio++;
+        while (fim > inicio && ehAspasOuEspaco(buffer.get(fim - 1))) fim--;
+
+        if (inicio == fim) return -1;
+
+        if (buffer.get(inicio) == '#') {
+            return (fim - inicio == 3 && buffer.get(inicio + 1) == 'N' && buffer.get(inicio + 2) == 'E') ? -3 : -1;
+        }
+
+        boolean negativo = false;
+        if (buffer.get(inicio) == '-' || buffer.get(inicio) == '+') {
+            negativo = buffer.get(inicio) == '-';
+            inicio++;
+            if (inicio == fim) return -1;
+        }
+
+        long valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) return -1;
+            valor = valor * 10 + digito;
+            if (valor > Integer.MAX_VALUE + 1L) return -1;
+        }
+
+        if (negativo) valor = -valor;
+        if (valor > Integer.MAX_VALUE || valor < Integer.MIN_VALUE) return -1;
+        return (int) valor;
+    }
+
+    /**
+     * Retorna o código do dicionário para um campo de texto, criando a
+     * String apenas na primeira ocorrência do valor.
+     */
+    private int codificarTexto(ByteBuffer buffer, int coluna, int inicio, int fim) {
+        // remove aspas e espaços das pontas (como limparString)
+        while (inicio < fim && ehAspasOuEspaco(buffer.get(inicio))) inicio++;
+        while (fim > inicio && ehAspasOuEspaco(buffer.get(fim - 1))) fim--;
+
+        int tamanho = fim - inicio;
+        if (tamanho > campo.length) {
+            campo = new byte[Math.max(tamanho, campo.length * 2)];
+        }
+
+        int hash = 0;
+        for (int i = 0; i < tamanho; i++) {
+            byte b = buffer.get(inicio + i);
+            campo[i] = b;
+            hash = 31 * hash + b;
+        }
+
+        TabelaBytes tabela = tabelas[coluna];
+        int codigo = tabela.buscar(campo, tamanho, hash);
+        if (codigo >= 0) {
+            return codigo;
+        }
+
+        // valor novo: cria a String uma única vez e cadastra no dicionário da coluna
+        String valor = new String(campo, 0, tamanho, StandardCharsets.ISO_8859_1);
+        if (valor.indexOf('"') >= 0) {
+            valor = valor.replace("\"", "").trim();
+        }
+        codigo = colunasTexto[coluna].dicionario.codificar(valor);
+        tabela.inserir(campo, tamanho, hash, codigo);
+        return codigo;
+    }
+
+    private static boolean ehAspasOuEspaco(byte b) {
+        return b == '"' || b == ' ' || b == '\t';
+    }
+
+    private static int proximaLinha(ByteBuffer buffer, int pos, int fim) {
+        while (pos < fim && buffer.get(pos) != '\n') {
+            pos++;
+        }
+        return Math.min(pos + 1, fim);
+    }
+
+    /**
+     * Tabela hash (endereçamento aberto) de sequência de bytes -> código do dicionário.
+     */
+    static class TabelaBytes {
+        private byte[][] chaves = new byte[64][];
+        private int[] hashes = new int[64];
+        private int[] codigos = new int[64];
+        private int quantidade;
+
+        int buscar(byte[] bytes, int tamanho, int hash) {
+            int mascara = chaves.length - 1;
+            int i = misturar(hash) & mascara;
+
+            while (chaves[i] != null) {
+                if (hashes[i] == hash && iguais(chaves[i], bytes, tamanho)) {
+                    return codigos[i];
+                }
+                i = (i + 1) & mascara;
+            }
+
+            return -1;
+        }
+
+        void inserir(byte[] bytes, int tamanho, int hash, int codigo) {
+            if ((quantidade + 1) * 2 > chaves.length) {
+                crescer();
+            }
+
+            byte[] chave = new byte[tamanho];
+            System.arraycopy(bytes, 0, chave, 0, tamanho);
+            posicionar(chave, hash, codigo);
+            quantidade++;
+        }
+
+        private void posicionar(byte[] chave, int hash, int codigo) {
+            int mascara = chaves.length - 1;
+            int i = misturar(hash) & mascara;
+            while (chaves[i] != null) {
+                i = (i + 1) & mascara;
+            }
+            chaves[i] = chave;
+            hashes[i] = hash;
+            codigos[i] = codigo;
+        }
+
+        private void crescer() {
+            byte[][] antigasChaves = chaves;
+            int[] antigosHashes = hashes;
+            int[] antigosCodigos = codigos;
+
+            chaves = new byte[antigasChaves.length * 2][];
+            hashes = new int[antigasChaves.length * 2];
+            codigos = new int[antigasChaves.length * 2];
+
+            for (int i = 0; i < antigasChaves.length; i++) {
+                if (antigasChaves[i] != null) {
+                    posicionar(antigasChaves[i], antigosHashes[i], antigosCodigos[i]);
+                }
+            }
+        }
+
+        private static boolean iguais(byte[] chave, byte[] bytes, int tamanho) {
+            if (chave.length != tamanho) return false;
+            for (int i = 0; i < tamanho; i++) {
+                if (chave[i] != bytes[i]) return false;
+            }
+            return true;
+        }
+
+        private static int misturar(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Carga paralela do CSV: o arquivo é dividido em trechos de bytes
+ * alinhados ao início das linhas e cada trecho é lido por um
+ * LeitorCsvMapeado próprio (com seu próprio ArmazemColunar) num
+ * ForkJoinPool.
+ *
+ * No final os armazéns parciais são anexados na ordem dos trechos, então
+ * a ordem das linhas e os totais são os mesmos da leitura sequencial.
+ */
+public class LeitorCsvParalelo {
+
+    // Trechos por thread: mais trechos que threads equilibram trechos "pesados"
+    private static final int TRECHOS_POR_THREAD = 4;
+
+    // Abaixo disso não compensa dividir o arquivo
+    private static final long TAMANHO_MINIMO_TRECHO = 4L * 1024 * 1024;
+
+    private final int threads;
+    private long linhasIgnoradas;
+
+    /**
+     * @param threads Quantidade de threads de leitura (mínimo 1)
+     */
+    public LeitorCsvParalelo(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Lê o arquivo inteiro (pulando o cabeçalho) em paralelo.
+     *
+     * @param arquivo Caminho do CSV extraído
+     * @param destino Armazém que recebe as linhas, na ordem do arquivo
+     * @return Quantidade de bytes lidos
+     */
+    public long carregar(String arquivo, ArmazemColunar destino) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(arquivo), StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            long[] limites = calcularLimites(canal, tamanhoArquivo);
+            int qtdTrechos = limites.length - 1;
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<Callable<LeitorCsvMapeado>> tarefas = new ArrayList<>();
+                for (int t = 0; t < qtdTrechos; t++) {
+                    final long inicio = limites[t];
+                    final long fim = limites[t + 1];
+                    final boolean primeiro = t == 0;
+                    // capacidade estimada pelo tamanho do trecho (~200 bytes por linha)
+                    final int capacidade = (int) Math.min(Integer.MAX_VALUE - 8, (fim - inicio) / 200 + 16);
+
+                    tarefas.add(() -> {
+                        LeitorCsvMapeado leitor = new LeitorCsvMapeado(new ArmazemColunar(capacidade));
+                        leitor.carregarIntervalo(canal, inicio, fim, primeiro);
+                        return leitor;
+                    });
+                }
+
+                // cópia própria para poder soltar cada trecho depois de anexado
+                List<Future<LeitorCsvMapeado>> resultados = new ArrayList<>(pool.invokeAll(tarefas));
+
+                // destino com o tamanho final de uma vez, sem crescer a cada anexar
+                long totalLinhas = destino.tamanho();
+                for (Future<LeitorCsvMapeado> resultado : resultados) {
+                    totalLinhas += resultado.get().armazem().tamanho();
+                }
+                if (totalLinhas > Integer.MAX_VALUE - 8) {
+                    throw new IOException("Arquivo com linhas demais para o armazém: " + totalLinhas);
+                }
+                destino.reservar((int) totalLinhas);
+
+                // junta os resultados na ordem dos trechos
+                for (int t = 0; t < resultados.size(); t++) {
+                    LeitorCsvMapeado leitor = resultados.get(t).get();
+                    resultados.set(t, null); // o armazém do trecho pode ser coletado
+                    destino.anexar(leitor.armazem());
+                    linhasIgnoradas += leitor.linhasIgnoradas();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Leitura paralela interrompida", e);
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause();
+                if (causa instanceof IOException) {
+                    throw (IOException) causa;
+                }
+                throw new IOException("Erro na leitura paralela: " + causa.getMessage(), causa);
+            } finally {
+                pool.shutdown();
+            }
+
+            return tamanhoArquivo;
+        }
+    }
+
+    /**
+     * Quantidade de linhas descartadas por terem menos de 31 campos.
+     */
+    public long linhasIgnoradas() {
+        return linhasIgnoradas;
+    }
+
+    /**
+     * Divide o arquivo em trechos, movendo cada divisão para logo depois
+     * do próximo '\n'.
+     *
+     * @return Posições [0, ..., tamanhoArquivo] dos limites dos trechos
+     */
+    private long[] calcularLimites(FileChannel canal, long tamanhoArquivo) throws IOException {
+        int desejados = (int) Math.max(1, Math.min((long) threads * TRECHOS_POR_THREAD,
+                tamanhoArquivo / TAMANHO_MINIMO_TRECHO));
+        long passo = tamanhoArquivo / desejados;
+
+        long[] limites = new long[desejados + 1];
+        int qtd = 0;
+        limites[qtd++] = 0;
+
+        ByteBuffer leitura = ByteBuffer.allocate(8192);
+        for (int t = 1; t < desejados; t++) {
+            long limite = inicioDaProximaLinha(canal, t * passo, tamanhoArquivo, leitura);
+            if (limite > limites[qtd - 1] && limite < tamanhoArquivo) {
+                limites[qtd++] = limite;
+            }
+        }
+        limites[qtd++] = tamanhoArquivo;
+
+        long[] resultado = new long[qtd];
+        System.arraycopy(limites, 0, resultado, 0, qtd);
+        return resultado;
+    }
+
+    private static long inicioDaProximaLinha(FileChannel canal, long posicao, long tamanhoArquivo,
+                                             ByteBuffer leitura) throws IOException {
+        while (posicao < tamanhoArquivo) {
+            leitura.clear();
+            int lidos = canal.read(leitura, posicao);
+            if (lidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < lidos; i++) {
+                if (leitura.get(i) == '\n') {
+                    return posicao + i + 1;
+                }
+            }
+            posicao += lidos;
+        }
+        return tamanhoArquivo;
+    }
+}
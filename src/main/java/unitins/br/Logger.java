@@ -4,11 +4,37 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.DecimalFormatSymbols;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Classe para registro de operações e tempos de execução.
+ *
+ * Modo síncrono (padrão): cada chamada formata, imprime e grava a linha no
+ * arquivo na hora.
+ *
+ * Modo assíncrono (ativarAssincrono ou -Dlogger.assincrono=true): a chamada
+ * só coloca o evento (tipo, texto, tempo, instante) num anel de tamanho
+ * fixo, sem trava. Uma thread de fundo retira os eventos em lotes, formata,
+ * imprime e grava tudo por um único FileChannel aberto. Se o anel encher, a
+ * política decide entre descartar o evento (contando os descartes) ou
+ * esperar por espaço.
+ *
+ * Pelas propriedades: -Dlogger.capacidade (eventos no anel, padrão 8192) e
+ * -Dlogger.politica=DESCARTAR|BLOQUEAR (padrão DESCARTAR, para o log nunca
+ * segurar quem está medindo).
  */
 public class Logger {
 
@@ -16,12 +42,64 @@ public class Logger {
     private static final String ARQUIVO_LOG = LOG_DIRECTORY + "/operacao.log";
     private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * O que fazer quando o anel do modo assíncrono está cheio.
+     */
+    public enum PoliticaFilaCheia {
+        /** Descarta o evento (a chamada nunca espera). */
+        DESCARTAR,
+        /** Espera a thread de escrita abrir espaço. */
+        BLOQUEAR
+    }
+
+    // Tipos de evento
+    private static final int REGISTRO = 0;
+    private static final int INFO = 1;
+    private static final int ERRO = 2;
+
+    // true = registrar e info não fazem nada (erros continuam saindo)
+    private static volatile boolean silencioso;
+
+    // Anel do modo assíncrono (null = modo síncrono)
+    private static volatile Anel anel;
+
+    // -Dlogger.capacidade sem valor
+    private static final int CAPACIDADE_PADRAO = 8192;
+
     static {
         // Garante que o diretório de log exista
         File logDir = new File(LOG_DIRECTORY);
         if (!logDir.exists()) {
             logDir.mkdirs();
         }
+
+        if (Boolean.getBoolean("logger.assincrono")) {
+            ativarAssincrono(Integer.getInteger("logger.capacidade", CAPACIDADE_PADRAO),
+                    politicaDaPropriedade(System.getProperty("logger.politica")));
+        }
+        silencioso = Boolean.getBoolean("logger.silencioso");
+    }
+
+    // política de -Dlogger.politica; ausente ou inválida = DESCARTAR
+    private static PoliticaFilaCheia politicaDaPropriedade(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return PoliticaFilaCheia.DESCARTAR;
+        }
+        try {
+            return PoliticaFilaCheia.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Política de log inválida: " + valor + " (usando DESCARTAR)");
+            return PoliticaFilaCheia.DESCARTAR;
+        }
+    }
+
+    /**
+     * Liga/desliga o modo silencioso: registrar e info são ignorados e só os
+     * erros continuam indo para o console e o arquivo. Usado pelos benchmarks
+     * para não medir formatação e E/S de log. Também por -Dlogger.silencioso=true.
+     */
+    public static void setSilencioso(boolean valor) {
+        silencioso = valor;
     }
 
     /**
@@ -30,6 +108,15 @@ public class Logger {
      * @param tempoMs Tempo em milissegundos
      */
     public static void registrar(String operacao, long tempoMs) {
+        if (silencioso) {
+            return;
+        }
+        Anel a = anel;
+        if (a != null) {
+            a.publicar(REGISTRO, operacao, null, tempoMs);
+            return;
+        }
+
         String timestamp = LocalDateTime.now().format(FORMATO);
         String mensagem = String.format("[%s] %s - Tempo: %d ms (%.2f s)",
                                         timestamp, operacao, tempoMs, tempoMs / 1000.0);
@@ -45,11 +132,39 @@ public class Logger {
         }
     }
 
+    /**
+     * Registra uma operação cujo nome é montado com String.format. No modo
+     * assíncrono a formatação acontece na thread de escrita.
+     * @param tempoMs Tempo em milissegundos
+     * @param formato Formato do nome da operação
+     * @param args Argumentos do formato
+     */
+    public static void registrar(long tempoMs, String formato, Object... args) {
+        if (silencioso) {
+            return;
+        }
+        Anel a = anel;
+        if (a != null) {
+            a.publicar(REGISTRO, formato, args, tempoMs);
+            return;
+        }
+        registrar(String.format(formato, args), tempoMs);
+    }
+
     /**
      * Registra uma mensagem informativa.
      * @param mensagem Mensagem a ser registrada
      */
     public static void info(String mensagem) {
+        if (silencioso) {
+            return;
+        }
+        Anel a = anel;
+        if (a != null) {
+            a.publicar(INFO, mensagem, null, 0);
+            return;
+        }
+
         String timestamp = LocalDateTime.now().format(FORMATO);
         String log = String.format("[%s] INFO: %s", timestamp, mensagem);
 
@@ -62,11 +177,35 @@ public class Logger {
         }
     }
 
+    /**
+     * Registra uma mensagem informativa montada com String.format. No modo
+     * assíncrono a formatação acontece na thread de escrita.
+     * @param formato Formato da mensagem
+     * @param args Argumentos do formato
+     */
+    public static void info(String formato, Object... args) {
+        if (silencioso) {
+            return;
+        }
+        Anel a = anel;
+        if (a != null) {
+            a.publicar(INFO, formato, args, 0);
+            return;
+        }
+        info(String.format(formato, args));
+    }
+
     /**
      * Registra um erro.
      * @param mensagem Mensagem de erro
      */
     public static void erro(String mensagem) {
+        Anel a = anel;
+        if (a != null) {
+            a.publicar(ERRO, mensagem, null, 0);
+            return;
+        }
+
         String timestamp = LocalDateTime.now().format(FORMATO);
         String log = String.format("[%s] ERRO: %s", timestamp, mensagem);
 
@@ -78,4 +217,325 @@ public class Logger {
             System.err.println("Erro ao salvar log: " + e.getMessage());
         }
     }
+
+    // ========== Modo assíncrono ==========
+
+    /**
+     * Passa para o modo assíncrono. Se já estiver assíncrono, o anel atual
+     * é esvaziado e trocado pelo novo.
+     *
+     * @param capacidade Quantidade máxima de eventos pendentes (arredondada
+     *                   para potência de 2)
+     * @param politica O que fazer quando o anel estiver cheio
+     */
+    public static synchronized void ativarAssincrono(int capacidade, PoliticaFilaCheia politica) {
+        desativarAssincrono();
+        try {
+            anel = new Anel(capacidade, politica);
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir log assíncrono: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Volta para o modo síncrono, gravando antes o que estiver pendente.
+     */
+    public static synchronized void desativarAssincrono() {
+        Anel a = anel;
+        if (a != null) {
+            anel = null;
+            a.encerrar();
+        }
+    }
+
+    /**
+     * Espera a thread de escrita gravar todos os eventos já publicados.
+     */
+    public static void descarregar() {
+        Anel a = anel;
+        if (a != null) {
+            a.descarregar();
+        }
+    }
+
+    /**
+     * Eventos descartados por anel cheio desde que o modo assíncrono foi ativado.
+     */
+    public static long descartados() {
+        Anel a = anel;
+        return a == null ? 0 : a.descartados.get();
+    }
+
+    /**
+     * Fila circular limitada com vários produtores e um consumidor, sem
+     * trava (cada posição tem um número de sequência que diz se ela está
+     * livre para o produtor ou pronta para o consumidor).
+     */
+    private static final class Anel implements Runnable {
+
+        // eventos por lote e bytes acumulados antes de gravar no arquivo
+        private static final int LOTE = 512;
+        private static final int TAMANHO_BUFFER = 64 * 1024;
+
+        // espera da thread de escrita quando o anel está vazio
+        private static final long ESPERA_VAZIO_NS = 2_000_000L;
+
+        private final int mascara;
+        private final PoliticaFilaCheia politica;
+
+        // posição i: pronta para escrita quando sequencia == pos,
+        // pronta para leitura quando sequencia == pos + 1
+        private final AtomicLongArray sequencias;
+        private final int[] tipos;
+        private final String[] textos;
+        private final Object[][] argumentos;
+        private final long[] tempos;
+        private final long[] instantes;
+
+        private final AtomicLong cauda = new AtomicLong();     // próxima posição dos produtores
+        private volatile long cabeca;                          // próxima posição do consumidor
+        private final AtomicLong descartados = new AtomicLong();
+        private long descartadosInformados;
+
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        private final StringBuilder linha = new StringBuilder(256);
+        private final StringBuilder console = new StringBuilder(4096);
+        private final StringBuilder consoleErro = new StringBuilder(256);
+
+        // data/hora formatada do último segundo visto (os eventos chegam em rajadas)
+        private long segundoFormatado = Long.MIN_VALUE;
+        private String timestampFormatado;
+        private final char separadorDecimal = DecimalFormatSymbols.getInstance().getDecimalSeparator();
+
+        private final Thread thread;
+        private final Thread ganchoSaida;
+        private volatile boolean ativo = true;
+        private final AtomicBoolean encerrado = new AtomicBoolean();
+
+        Anel(int capacidade, PoliticaFilaCheia politica) throws IOException {
+            int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+            this.mascara = tamanho - 1;
+            this.politica = politica;
+
+            this.sequencias = new AtomicLongArray(tamanho);
+            for (int i = 0; i < tamanho; i++) {
+                sequencias.set(i, i);
+            }
+            this.tipos = new int[tamanho];
+            this.textos = new String[tamanho];
+            this.argumentos = new Object[tamanho][];
+            this.tempos = new long[tamanho];
+            this.instantes = new long[tamanho];
+
+            this.canal = FileChannel.open(Paths.get(ARQUIVO_LOG),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+            this.thread = new Thread(this, "logger");
+            this.thread.setDaemon(true);
+            this.thread.start();
+
+            // grava o que estiver pendente quando a JVM terminar
+            this.ganchoSaida = new Thread(this::encerrar, "logger-saida");
+            Runtime.getRuntime().addShutdownHook(ganchoSaida);
+        }
+
+        /**
+         * Chamado pelas threads da aplicação: só copia os campos para o anel.
+         */
+        void publicar(int tipo, String texto, Object[] args, long tempoMs) {
+            long instante = System.currentTimeMillis();
+            long pos;
+
+            while (true) {
+                pos = cauda.get();
+                long diferenca = sequencias.get((int) pos & mascara) - pos;
+                if (diferenca == 0) {
+                    if (cauda.compareAndSet(pos, pos + 1)) {
+                        break;
+                    }
+                } else if (diferenca < 0) {
+                    // anel cheio
+                    if (politica == PoliticaFilaCheia.DESCARTAR || !ativo) {
+                        descartados.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.unpark(thread);
+                    LockSupport.parkNanos(50_000L);
+                }
+                // diferenca > 0: outro produtor pegou a posição, tenta de novo
+            }
+
+            int i = (int) pos & mascara;
+            tipos[i] = tipo;
+            textos[i] = texto;
+            argumentos[i] = args;
+            tempos[i] = tempoMs;
+            instantes[i] = instante;
+            sequencias.lazySet(i, pos + 1); // publica a posição para o consumidor
+        }
+
+        @Override
+        public void run() {
+            while (ativo) {
+                if (drenar() == 0) {
+                    LockSupport.parkNanos(ESPERA_VAZIO_NS);
+                }
+            }
+        }
+
+        /**
+         * Retira e grava um lote de eventos. Só a thread de escrita (ou o
+         * encerramento, depois dela parar) chama este método.
+         */
+        private synchronized int drenar() {
+            int qtd = 0;
+            long pos = cabeca;
+
+            while (qtd < LOTE) {
+                int i = (int) pos & mascara;
+                if (sequencias.get(i) != pos + 1) {
+                    break; // vazio (ou produtor ainda copiando)
+                }
+
+                formatar(tipos[i], textos[i], argumentos[i], tempos[i], instantes[i]);
+                textos[i] = null;
+                argumentos[i] = null;
+
+                sequencias.lazySet(i, pos + mascara + 1); // libera a posição para a próxima volta
+                pos++;
+                qtd++;
+            }
+
+            long perdidos = descartados.get();
+            if (perdidos != descartadosInformados) {
+                formatar(ERRO, (perdidos - descartadosInformados)
+                        + " mensagens de log descartadas (fila cheia)", null, 0, System.currentTimeMillis());
+                descartadosInformados = perdidos;
+            }
+
+            if (console.length() > 0) {
+                System.out.print(console);
+                console.setLength(0);
+            }
+            if (consoleErro.length() > 0) {
+                System.err.print(consoleErro);
+                consoleErro.setLength(0);
+            }
+            gravarBuffer();
+
+            cabeca = pos;
+            return qtd;
+        }
+
+        private void formatar(int tipo, String texto, Object[] args, long tempoMs, long instante) {
+            long segundo = Math.floorDiv(instante, 1000L);
+            if (segundo != segundoFormatado) {
+                timestampFormatado = LocalDateTime.ofInstant(Instant.ofEpochMilli(instante), ZoneId.systemDefault())
+                        .format(FORMATO);
+                segundoFormatado = segundo;
+            }
+            String mensagem = args == null ? texto : String.format(texto, args);
+
+            linha.setLength(0);
+            linha.append('[').append(timestampFormatado).append("] ");
+            switch (tipo) {
+                case REGISTRO:
+                    linha.append(mensagem).append(" - Tempo: ").append(tempoMs).append(" ms (");
+                    anexarSegundos(tempoMs);
+                    linha.append(" s)");
+                    break;
+                case INFO:
+                    linha.append("INFO: ").append(mensagem);
+                    break;
+                default:
+                    linha.append("ERRO: ").append(mensagem);
+            }
+            linha.append(System.lineSeparator());
+
+            (tipo == ERRO ? consoleErro : console).append(linha);
+
+            byte[] bytes = linha.toString().getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > buffer.remaining()) {
+                gravarBuffer();
+            }
+            if (bytes.length > buffer.remaining()) {
+                escrever(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        // o mesmo que String.format("%.2f", tempoMs / 1000.0), sem o Formatter
+        private void anexarSegundos(long tempoMs) {
+            if (tempoMs < 0) {
+                linha.append(String.format("%.2f", tempoMs / 1000.0));
+                return;
+            }
+            long centesimos = (tempoMs + 5) / 10;
+            linha.append(centesimos / 100).append(separadorDecimal);
+            long resto = centesimos % 100;
+            if (resto < 10) {
+                linha.append('0');
+            }
+            linha.append(resto);
+        }
+
+        private void gravarBuffer() {
+            buffer.flip();
+            escrever(buffer);
+            buffer.clear();
+        }
+
+        private void escrever(ByteBuffer bytes) {
+            try {
+                while (bytes.hasRemaining()) {
+                    canal.write(bytes);
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao salvar log: " + e.getMessage());
+                bytes.position(bytes.limit());
+            }
+        }
+
+        void descarregar() {
+            long alvo = cauda.get();
+            while (cabeca < alvo && ativo) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(100_000L);
+            }
+        }
+
+        void encerrar() {
+            if (!encerrado.compareAndSet(false, true)) {
+                return;
+            }
+            ativo = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            // o que ainda estiver no anel
+            while (drenar() > 0) {
+                // continua até esvaziar
+            }
+
+            try {
+                canal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar log: " + e.getMessage());
+            }
+
+            if (Thread.currentThread() != ganchoSaida) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(ganchoSaida);
+                } catch (IllegalStateException e) {
+                    // a JVM já está encerrando
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,360 @@
+package unitins.br;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de métricas de desempenho, com tempos em nanossegundos.
+ *
+ * Cada operação (carga, construção de índice, tipo de consulta) tem um
+ * histograma de latência no estilo HDR: os valores caem em faixas que
+ * dobram de tamanho a cada potência de 2, com 32 subdivisões por faixa, o
+ * que dá erro relativo de no máximo ~3% no p50/p99 com memória fixa e
+ * registro sem trava. Além dos histogramas há contadores simples (linhas
+ * lidas, bytes lidos, nós da árvore visitados, acertos de índice).
+ *
+ * O resumo pode ser visto no menu do App e exportado em texto ou JSON.
+ */
+public class Metricas {
+
+    // ========== Operações (histogramas) ==========
+    public static final String CARGA_CSV = "carga.csv";
+    public static final String CARGA_STREAMING = "carga.streaming";
+    public static final String CARGA_SNAPSHOT = "carga.snapshot";
+    public static final String CARGA_CATALOGO = "carga.catalogo";
+    public static final String CARGA_FORA_DO_HEAP = "carga.foraDoHeap";
+    public static final String SNAPSHOT_GRAVACAO = "snapshot.gravacao";
+    public static final String DOWNLOAD = "arquivo.download";
+    public static final String EXTRACAO_ZIP = "arquivo.extracao_zip";
+    public static final String INDICE_ARVORE = "indice.arvore_cidade";
+    public static final String INDICE_HIERARQUICO = "indice.hierarquico";
+    public static final String INDICE_FAIXAS = "indice.faixas";
+    public static final String INDICE_CATALOGO_CIDADES = "indice.catalogo_cidades";
+    public static final String INDICE_CUBO = "indice.cubo";
+    public static final String INDICE_BITMAP = "indice.bitmap";
+    public static final String CONSULTA_CUBO = "consulta.cubo";
+    public static final String CONSULTA_ARVORE = "consulta.arvore";
+    public static final String CONSULTA_LINEAR = "consulta.linear";
+    public static final String CONSULTA_COMBINADA = "consulta.combinada";
+    public static final String ESTATISTICAS = "consulta.estatisticas";
+    public static final String LISTAGEM = "consulta.listagem";
+
+    // ========== Contadores ==========
+    public static final String LINHAS_LIDAS = "linhas_lidas";
+    public static final String BYTES_LIDOS = "bytes_lidos";
+    public static final String NOS_VISITADOS = "arvore.nos_visitados";
+    public static final String ACERTOS_INDICE = "indice.acertos";
+    public static final String FALHAS_INDICE = "indice.falhas";
+    public static final String ACERTOS_CATALOGO = "catalogo.acertos";
+    public static final String DESCARTES_CATALOGO = "catalogo.descartes";
+
+    private static final String ARQUIVO_EXPORTACAO = "dados/metricas";
+
+    // TreeMap concorrente: o resumo sai em ordem alfabética (agrupa por prefixo)
+    private static final Map<String, Histograma> histogramas = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> contadores = new ConcurrentSkipListMap<>();
+
+    private Metricas() {
+    }
+
+    /**
+     * Marca o início de uma medição (use com registrar).
+     */
+    public static long iniciar() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra no histograma da operação o tempo decorrido desde inicioNs.
+     *
+     * @param operacao Nome da operação (ex: Metricas.CONSULTA_CUBO)
+     * @param inicioNs Valor devolvido por iniciar()
+     * @return Tempo decorrido em nanossegundos
+     */
+    public static long registrar(String operacao, long inicioNs) {
+        long decorrido = System.nanoTime() - inicioNs;
+        histograma(operacao).registrar(decorrido);
+        return decorrido;
+    }
+
+    /**
+     * Soma uma quantidade ao contador.
+     */
+    public static void contar(String contador, long quantidade) {
+        LongAdder c = contadores.get(contador);
+        if (c == null) {
+            c = contadores.computeIfAbsent(contador, k -> new LongAdder());
+        }
+        c.add(quantidade);
+    }
+
+    /**
+     * Retorna o histograma da operação (criado vazio se ainda não existir).
+     */
+    public static Histograma histograma(String operacao) {
+        Histograma h = histogramas.get(operacao);
+        if (h == null) {
+            h = histogramas.computeIfAbsent(operacao, k -> new Histograma());
+        }
+        return h;
+    }
+
+    /**
+     * Valor atual do contador (0 se nunca foi usado).
+     */
+    public static long contador(String contador) {
+        LongAdder c = contadores.get(contador);
+        return c == null ? 0 : c.sum();
+    }
+
+    /**
+     * Zera todos os histogramas e contadores.
+     */
+    public static void limpar() {
+        histogramas.clear();
+        contadores.clear();
+    }
+
+    /**
+     * Converte nanossegundos para os milissegundos usados pelo Logger.
+     */
+    public static long emMs(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    // ========== Resumo ==========
+
+    /**
+     * Resumo em texto, em forma de tabela.
+     */
+    public static String resumoTexto() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-26s %9s %11s %11s %11s %11s%n",
+                "Operação", "Qtd", "p50", "p99", "Máx", "Média"));
+        for (Map.Entry<String, Histograma> e : histogramas.entrySet()) {
+            Histograma h = e.getValue();
+            long qtd = h.contagem();
+            if (qtd == 0) {
+                continue;
+            }
+            sb.append(String.format("%-26s %,9d %11s %11s %11s %11s%n", e.getKey(), qtd,
+                    formatarDuracao(h.percentil(50)), formatarDuracao(h.percentil(99)),
+                    formatarDuracao(h.maximo()), formatarDuracao(h.media())));
+        }
+
+        sb.append(String.format("%n%-26s %15s%n", "Contador", "Valor"));
+        for (Map.Entry<String, LongAdder> e : contadores.entrySet()) {
+            sb.append(String.format("%-26s %,15d%n", e.getKey(), e.getValue().sum()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Resumo em JSON (tempos em nanossegundos).
+     */
+    public static String resumoJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"geradoEm\": \"")
+          .append(LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append("\",\n");
+        sb.append("  \"operacoes\": {");
+        boolean primeiro = true;
+        for (Map.Entry<String, Histograma> e : histogramas.entrySet()) {
+            Histograma h = e.getValue();
+            if (h.contagem() == 0) {
+                continue;
+            }
+            sb.append(primeiro ? "\n" : ",\n");
+            primeiro = false;
+            sb.append("    \"").append(escaparJson(e.getKey())).append("\": {")
+              .append("\"contagem\": ").append(h.contagem())
+              .append(", \"p50Ns\": ").append(h.percentil(50))
+              .append(", \"p99Ns\": ").append(h.percentil(99))
+              .append(", \"minNs\": ").append(h.minimo())
+              .append(", \"maxNs\": ").append(h.maximo())
+              .append(", \"mediaNs\": ").append(h.media())
+              .append(", \"totalNs\": ").append(h.total())
+              .append('}');
+        }
+        sb.append(primeiro ? "},\n" : "\n  },\n");
+
+        sb.append("  \"contadores\": {");
+        primeiro = true;
+        for (Map.Entry<String, LongAdder> e : contadores.entrySet()) {
+            sb.append(primeiro ? "\n" : ",\n");
+            primeiro = false;
+            sb.append("    \"").append(escaparJson(e.getKey())).append("\": ").append(e.getValue().sum());
+        }
+        sb.append(primeiro ? "}\n" : "\n  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Grava o resumo em dados/metricas.txt e dados/metricas.json.
+     *
+     * @return Caminhos dos dois arquivos gravados
+     */
+    public static String[] exportar() throws IOException {
+        String txt = ARQUIVO_EXPORTACAO + ".txt";
+        String json = ARQUIVO_EXPORTACAO + ".json";
+        gravar(txt, resumoTexto());
+        gravar(json, resumoJson());
+        return new String[] { txt, json };
+    }
+
+    private static void gravar(String arquivo, String conteudo) throws IOException {
+        Path destino = Paths.get(arquivo);
+        if (destino.getParent() != null) {
+            Files.createDirectories(destino.getParent());
+        }
+        // grava num temporário e troca, para não deixar um arquivo pela metade
+        Path temporario = Paths.get(arquivo + ".tmp");
+        Files.write(temporario, conteudo.getBytes(StandardCharsets.UTF_8));
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String formatarDuracao(long nanos) {
+        if (nanos < 1_000L) {
+            return nanos + " ns";
+        }
+        if (nanos < 1_000_000L) {
+            return String.format("%.1f µs", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000L) {
+            return String.format("%.2f ms", nanos / 1e6);
+        }
+        return String.format("%.2f s", nanos / 1e9);
+    }
+
+    private static String escaparJson(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Histograma de latência com faixas logarítmicas (estilo HDR).
+     *
+     * Valores abaixo de 64 ns têm uma faixa por nanossegundo; acima disso,
+     * cada potência de 2 é dividida em 32 faixas iguais. O índice da faixa
+     * sai direto dos bits do valor (sem busca), e o registro é só um
+     * incremento atômico.
+     */
+    public static class Histograma {
+
+        private static final int BITS_SUBFAIXA = 5;
+        private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+        // shift máximo (valor de 63 bits) = 63 - 1 - BITS_SUBFAIXA
+        private static final int FAIXAS = SUBFAIXAS * (64 - BITS_SUBFAIXA) + SUBFAIXAS;
+
+        private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+        private final LongAdder contagem = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong minimo = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong maximo = new AtomicLong(0);
+
+        /**
+         * Registra um valor (nanossegundos; negativos contam como 0).
+         */
+        public void registrar(long valor) {
+            if (valor < 0) {
+                valor = 0;
+            }
+            contagens.incrementAndGet(indice(valor));
+            contagem.increment();
+            total.add(valor);
+
+            long atual;
+            while (valor > (atual = maximo.get()) && !maximo.compareAndSet(atual, valor)) {
+                // outra thread mudou o máximo; tenta de novo
+            }
+            while (valor < (atual = minimo.get()) && !minimo.compareAndSet(atual, valor)) {
+                // idem para o mínimo
+            }
+        }
+
+        public long contagem() {
+            return contagem.sum();
+        }
+
+        public long total() {
+            return total.sum();
+        }
+
+        public long maximo() {
+            return maximo.get();
+        }
+
+        public long minimo() {
+            long m = minimo.get();
+            return m == Long.MAX_VALUE ? 0 : m;
+        }
+
+        public long media() {
+            long n = contagem();
+            return n == 0 ? 0 : total() / n;
+        }
+
+        /**
+         * Valor abaixo do qual estão p% das medições (maior valor da faixa,
+         * limitado ao máximo observado).
+         *
+         * @param p Percentil entre 0 e 100
+         */
+        public long percentil(double p) {
+            long n = contagem();
+            if (n == 0) {
+                return 0;
+            }
+            long posicao = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+            long acumulado = 0;
+            for (int i = 0; i < FAIXAS; i++) {
+                acumulado += contagens.get(i);
+                if (acumulado >= posicao) {
+                    return Math.min(maiorValorDaFaixa(i), maximo());
+                }
+            }
+            return maximo();
+        }
+
+        static int indice(long valor) {
+            if (valor < 2 * SUBFAIXAS) {
+                return (int) valor;
+            }
+            // shift tal que (valor >>> shift) fique entre SUBFAIXAS e 2*SUBFAIXAS-1
+            int shift = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBFAIXA;
+            return SUBFAIXAS * shift + (int) (valor >>> shift);
+        }
+
+        static long maiorValorDaFaixa(int indice) {
+            if (indice < 2 * SUBFAIXAS) {
+                return indice;
+            }
+            int shift = indice / SUBFAIXAS - 1;
+            long mantissa = indice - (long) SUBFAIXAS * shift;
+            return ((mantissa + 1) << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package unitins.br;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Varredura paralela das colunas do armazém (abrangência ESTADO e
+ * estatísticas gerais).
+ *
+ * As linhas são divididas em segmentos, cada segmento é somado numa
+ * tarefa do ForkJoinPool e as somas parciais são juntadas no final. Como
+ * são somas de inteiros, o resultado é o mesmo da varredura sequencial.
+ *
+ * Dentro do segmento, as somas sem filtro e com filtro de um único valor
+ * usam a Vector API (SomaVetorial) quando o módulo jdk.incubator.vector
+ * está disponível; os demais casos usam o plano da consulta.
+ */
+public class MotorVarredura {
+
+    // Segmentos por thread: mais segmentos que threads equilibram a carga
+    private static final int SEGMENTOS_POR_THREAD = 4;
+
+    // Abaixo disso não compensa dividir
+    private static final int TAMANHO_MINIMO_SEGMENTO = 1 << 16;
+
+    private static final boolean VETORIAL = vetorialDisponivel();
+
+    private final int threads;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param threads Quantidade de threads da varredura (1 = sequencial)
+     */
+    public MotorVarredura(int threads) {
+        this.threads = Math.max(1, threads);
+        this.pool = this.threads > 1 ? new ForkJoinPool(this.threads) : null;
+    }
+
+    /**
+     * Se os laços vetoriais (Vector API) estão em uso.
+     */
+    public static boolean vetorial() {
+        return VETORIAL;
+    }
+
+    /**
+     * Soma a medida do plano sobre as linhas [0, total) do armazém.
+     */
+    public long somar(ArmazemColunar armazem, int total, ConsultaCompilada plano) {
+        long[] parciais = executar(total, (inicio, fim) -> new long[] {somarSegmento(armazem, plano, inicio, fim)});
+        return parciais[0];
+    }
+
+    /**
+     * Totais de eleitores, biometria, deficiência e nome social.
+     */
+    public long[] estatisticas(ArmazemColunar armazem, int total) {
+        int[][] colunas = {
+            armazem.qtEleitoresPerfil,
+            armazem.qtEleitoresBiometria,
+            armazem.qtEleitoresDeficiencia,
+            armazem.qtEleitoresIncNmSocial
+        };
+
+        return executar(total, (inicio, fim) -> {
+            long[] somas = new long[colunas.length];
+            for (int c = 0; c < colunas.length; c++) {
+                somas[c] = somarColuna(colunas[c], inicio, fim);
+            }
+            return somas;
+        });
+    }
+
+    /**
+     * Soma a medida do plano sobre todas as linhas do armazém fora do heap.
+     */
+    public long somar(ArmazemForaDoHeap armazem, ConsultaCompilada plano) {
+        long[] parciais = executar(armazem.tamanho(),
+                (inicio, fim) -> new long[] {somarSegmento(armazem, plano, inicio, fim)});
+        return parciais[0];
+    }
+
+    /**
+     * Estatísticas (como acima) lendo o armazém fora do heap.
+     */
+    public long[] estatisticas(ArmazemForaDoHeap armazem) {
+        MemorySegment[] colunas = {
+            armazem.coluna(ArmazemForaDoHeap.QT_ELEITORES_PERFIL),
+            armazem.coluna(ArmazemForaDoHeap.QT_ELEITORES_BIOMETRIA),
+            armazem.coluna(ArmazemForaDoHeap.QT_ELEITORES_DEFICIENCIA),
+            armazem.coluna(ArmazemForaDoHeap.QT_ELEITORES_INC_NM_SOCIAL)
+        };
+
+        return executar(armazem.tamanho(), (inicio, fim) -> {
+            long[] somas = new long[colunas.length];
+            for (int c = 0; c < colunas.length; c++) {
+                somas[c] = somarColuna(colunas[c], inicio, fim);
+            }
+            return somas;
+        });
+    }
+
+    /**
+     * Libera as threads do motor.
+     */
+    public void encerrar() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // ========== Segmentos ==========
+
+    private interface Segmento {
+        long[] somar(int inicio, int fim);
+    }
+
+    /**
+     * Roda o segmento sobre [0, total) em partes e soma os vetores parciais.
+     */
+    private long[] executar(int total, Segmento segmento) {
+        int tamanho = Math.max(TAMANHO_MINIMO_SEGMENTO, total / (threads * SEGMENTOS_POR_THREAD) + 1);
+
+        if (pool == null || total <= tamanho) {
+            return segmento.somar(0, total);
+        }
+
+        List<Callable<long[]>> tarefas = new ArrayList<>();
+        for (int inicio = 0; inicio < total; inicio += tamanho) {
+            final int de = inicio;
+            final int ate = Math.min(total, inicio + tamanho);
+            tarefas.add(() -> segmento.somar(de, ate));
+        }
+
+        try {
+            long[] resultado = null;
+            for (Future<long[]> parcial : pool.invokeAll(tarefas)) {
+                long[] somas = parcial.get();
+                if (resultado == null) {
+                    resultado = somas;
+                } else {
+                    for (int k = 0; k < somas.length; k++) {
+                        resultado[k] += somas[k];
+                    }
+                }
+            }
+            return resultado;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Varredura paralela interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro na varredura paralela: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static long somarSegmento(ArmazemColunar armazem, ConsultaCompilada plano, int inicio, int fim) {
+        if (VETORIAL && plano.abrangeEstado()) {
+            int[] medida = plano.colunaMedida(armazem);
+            int[] filtro = plano.colunaPerfil(armazem);
+            if (filtro == null) {
+                return SomaVetorial.somar(medida, inicio, fim);
+            }
+            int alvo = plano.valorUnicoAceito();
+            if (alvo != ConsultaCompilada.SEM_CODIGO) {
+                return SomaVetorial.somarOndeIgual(filtro, alvo, medida, inicio, fim);
+            }
+        }
+        return plano.somar(armazem, inicio, fim);
+    }
+
+    private static long somarSegmento(ArmazemForaDoHeap armazem, ConsultaCompilada plano, int inicio, int fim) {
+        if (VETORIAL && plano.abrangeEstado()) {
+            MemorySegment medida = armazem.coluna(plano.campoMedida());
+            int campoFiltro = plano.campoPerfil();
+            if (campoFiltro < 0) {
+                return SomaVetorial.somar(medida, inicio, fim);
+            }
+            int alvo = plano.valorUnicoAceito();
+            if (alvo != ConsultaCompilada.SEM_CODIGO) {
+                return SomaVetorial.somarOndeIgual(armazem.coluna(campoFiltro), alvo, medida, inicio, fim);
+            }
+        }
+        return plano.somar(armazem, inicio, fim);
+    }
+
+    private static long somarColuna(MemorySegment coluna, int inicio, int fim) {
+        if (VETORIAL) {
+            return SomaVetorial.somar(coluna, inicio, fim);
+        }
+        long total = 0;
+        for (int i = inicio; i < fim; i++) {
+            total += coluna.getAtIndex(ValueLayout.JAVA_INT, i);
+        }
+        return total;
+    }
+
+    private static long somarColuna(int[] coluna, int inicio, int fim) {
+        if (VETORIAL) {
+            return SomaVetorial.somar(coluna, inicio, fim);
+        }
+        long total = 0;
+        for (int i = inicio; i < fim; i++) {
+            total += coluna[i];
+        }
+        return total;
+    }
+
+    private static boolean vetorialDisponivel() {
+        try {
+            return SomaVetorial.somar(new int[1], 0, 1) == 0;
+        } catch (LinkageError e) {
+            // rodando sem --add-modules jdk.incubator.vector
+            return false;
+        }
+    }
+}
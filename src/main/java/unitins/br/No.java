@@ -3,9 +3,9 @@ package unitins.br;
 public class No<T extends Comparable<T>> {
 
     public T chave;
-    public PerfilEleitor[] registros;
-    public int qtdRegistros;
-    public int capacidade;
+    public int[] linhas; // linhas do armazém com esta chave, em ordem de inserção
+    public int qtdLinhas;
+    public int altura; // usado pelas árvores balanceadas (AVL)
 
     public No<T> esquerda;
     public No<T> direita;
@@ -13,25 +13,53 @@ public class No<T extends Comparable<T>> {
     // criando construtor que inicia o nó com a chave e uma capacidade inicial
     public No(T chave) {
         this.chave = chave;
-        this.capacidade = 10; // capacidade inicial
-        this.registros = new PerfilEleitor[this.capacidade];
-        this.qtdRegistros = 0;
+        this.linhas = new int[10]; // capacidade inicial
+        this.qtdLinhas = 0;
+        this.altura = 1; // nó folha
         this.esquerda = null;
         this.direita = null;
     }
 
-    // adicionando um novo registro ao nó
-    public void novoRegistro(PerfilEleitor registro) {
+    // construtor usado na carga em lote: o nó já recebe o array com o tamanho exato
+    public No(T chave, int[] linhas) {
+        this.chave = chave;
+        this.linhas = linhas;
+        this.qtdLinhas = linhas.length;
+        this.altura = 1;
+        this.esquerda = null;
+        this.direita = null;
+    }
+
+    // adicionando a linha de um novo registro ao nó
+    public void novaLinha(int linha) {
 
         // verificando a capacidade do array, se ele estiver cheio, duplica o tamanho
-        if (qtdRegistros >= capacidade) {
-            capacidade *= 2;
-            PerfilEleitor[] novoArray = new PerfilEleitor[capacidade];
-            System.arraycopy(registros, 0, novoArray, 0, qtdRegistros);
-            registros = novoArray;
+        if (qtdLinhas == linhas.length) {
+            int[] novoArray = new int[linhas.length * 2];
+            System.arraycopy(linhas, 0, novoArray, 0, qtdLinhas);
+            linhas = novoArray;
+        }
+
+        linhas[qtdLinhas++] = linha;
+    }
+
+    // corta a sobra do array (fim da carga); depois disso linhas.length == qtdLinhas
+    public void compactar() {
+        if (qtdLinhas < linhas.length) {
+            int[] exato = new int[qtdLinhas];
+            System.arraycopy(linhas, 0, exato, 0, qtdLinhas);
+            linhas = exato;
         }
+    }
 
-        registros[qtdRegistros++] = registro;
+    // linhas com o tamanho exato (o próprio array se o nó já estiver compactado)
+    public int[] linhasExatas() {
+        if (qtdLinhas == linhas.length) {
+            return linhas;
+        }
+        int[] exato = new int[qtdLinhas];
+        System.arraycopy(linhas, 0, exato, 0, qtdLinhas);
+        return exato;
     }
-    
+
 }
\ No newline at end of file
@@ -92,6 +92,8 @@ public record PerfilEleitor(
      */
     private static String limparString(String valor) {
         if (valor == null) return "";
+        // evita criar uma String nova quando não há aspas nem espaços
+        if (valor.indexOf('"') < 0) return valor.trim();
         return valor.replace("\"", "").trim();
     }
 
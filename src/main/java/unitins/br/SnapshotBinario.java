@@ -0,0 +1,326 @@
+package unitins.br;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot binário de um estado já carregado, para recarregar sem
+ * interpretar o CSV de novo.
+ *
+ * Layout (big-endian):
+ *   MAGICO, VERSAO, DT_GERACAO do CSV de origem, quantidade de linhas,
+ *   17 colunas int[] (na ordem de ArmazemColunar.colunasNumericas),
+ *   14 colunas de texto (dicionário + int[] de códigos),
+ *   índice por cidade (códigos em ordem, contagens e ids das linhas),
+ *   CRC32 de tudo o que vem antes.
+ *
+ * A leitura mapeia o arquivo (FileChannel.map) e copia as colunas em
+ * bloco. O snapshot é descartado se a versão, o CRC ou a DT_GERACAO do
+ * CSV não baterem.
+ */
+public class SnapshotBinario {
+
+    private static final int MAGICO = 0x54534531; // "TSE1"
+    private static final int VERSAO = 1;
+
+    // Janela de mapeamento da leitura (um MappedByteBuffer tem limite de 2 GB)
+    private static final long TAMANHO_JANELA = 64L * 1024 * 1024;
+
+    private static final int TAMANHO_BUFFER = 1024 * 1024;
+
+    /**
+     * Conteúdo lido de um snapshot.
+     */
+    public static class Conteudo {
+        public final String dtGeracao;
+        public final ArmazemColunar armazem;
+        public final int[] cidades; // códigos em ordem crescente
+        public final int[][] linhasPorCidade; // linhasPorCidade[i] = linhas da cidade cidades[i]
+
+        Conteudo(String dtGeracao, ArmazemColunar armazem, int[] cidades, int[][] linhasPorCidade) {
+            this.dtGeracao = dtGeracao;
+            this.armazem = armazem;
+            this.cidades = cidades;
+            this.linhasPorCidade = linhasPorCidade;
+        }
+    }
+
+    // ========== Gravação ==========
+
+    /**
+     * Grava o snapshot do armazém (arquivo temporário + troca atômica).
+     *
+     * @param arquivo Caminho do snapshot (ex: dados/perfil_eleitor_secao_SP.snap)
+     * @param armazem Dados carregados
+     */
+    public static void salvar(String arquivo, ArmazemColunar armazem) throws IOException {
+        Path destino = Paths.get(arquivo);
+        Path temporario = Paths.get(arquivo + ".tmp");
+        int linhas = armazem.tamanho();
+
+        CheckedOutputStream checked = new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporario.toFile()), TAMANHO_BUFFER), new CRC32());
+
+        try (DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGICO);
+            out.writeInt(VERSAO);
+            escreverTexto(out, linhas > 0 ? armazem.dtGeracao.valor(0) : "");
+            out.writeInt(linhas);
+
+            byte[] bloco = new byte[TAMANHO_BUFFER];
+
+            for (int[] coluna : armazem.colunasNumericas()) {
+                escreverInts(out, coluna, linhas, bloco);
+            }
+
+            for (ArmazemColunar.ColunaTexto coluna : armazem.colunasTexto()) {
+                Dicionario dicionario = coluna.dicionario;
+                out.writeInt(dicionario.tamanho());
+                for (int c = 0; c < dicionario.tamanho(); c++) {
+                    escreverTexto(out, dicionario.valor(c));
+                }
+                escreverInts(out, coluna.codigos, linhas, bloco);
+            }
+
+            // índice por cidade
+            int[] cidades = Vetores.distintos(armazem.codCidade, 0, linhas);
+            int[] contagens = new int[cidades.length];
+            int[] posicaoCidade = new int[linhas];
+            for (int i = 0; i < linhas; i++) {
+                int c = Arrays.binarySearch(cidades, armazem.codCidade[i]);
+                posicaoCidade[i] = c;
+                contagens[c]++;
+            }
+
+            int[] inicio = new int[cidades.length];
+            for (int c = 1; c < cidades.length; c++) {
+                inicio[c] = inicio[c - 1] + contagens[c - 1];
+            }
+            int[] linhasOrdenadas = new int[linhas];
+            for (int i = 0; i < linhas; i++) {
+                linhasOrdenadas[inicio[posicaoCidade[i]]++] = i;
+            }
+
+            out.writeInt(cidades.length);
+            escreverInts(out, cidades, cidades.length, bloco);
+            escreverInts(out, contagens, contagens.length, bloco);
+            escreverInts(out, linhasOrdenadas, linhas, bloco);
+
+            out.flush();
+            out.writeLong(checked.getChecksum().getValue());
+        }
+
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void escreverInts(DataOutputStream out, int[] valores, int quantidade, byte[] bloco) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bloco);
+        int porBloco = bloco.length / 4;
+
+        for (int inicio = 0; inicio < quantidade; inicio += porBloco) {
+            int n = Math.min(porBloco, quantidade - inicio);
+            buffer.clear();
+            buffer.asIntBuffer().put(valores, inicio, n);
+            out.write(bloco, 0, n * 4);
+        }
+    }
+
+    private static void escreverTexto(DataOutputStream out, String valor) throws IOException {
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // ========== Leitura ==========
+
+    /**
+     * Lê só o cabeçalho do snapshot e retorna a DT_GERACAO do CSV de origem.
+     *
+     * @return DT_GERACAO, ou null se o arquivo não existir ou tiver outra versão
+     */
+    public static String lerDtGeracao(String arquivo) {
+        if (!Files.exists(Paths.get(arquivo))) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(arquivo)))) {
+            if (in.readInt() != MAGICO || in.readInt() != VERSAO) {
+                return null;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Carrega o snapshot mapeando o arquivo em memória.
+     *
+     * @return Conteúdo lido, ou null se o snapshot for inválido (versão ou CRC)
+     */
+    public static Conteudo carregar(String arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(arquivo), StandardOpenOption.READ)) {
+            long tamanhoArquivo = canal.size();
+            if (tamanhoArquivo < 16) {
+                return null;
+            }
+
+            // confere o CRC antes de interpretar qualquer coisa
+            long fimDados = tamanhoArquivo - 8;
+            if (calcularCrc(canal, fimDados) != canal.map(FileChannel.MapMode.READ_ONLY, fimDados, 8).getLong()) {
+                Logger.erro("Snapshot com CRC inválido: " + arquivo);
+                return null;
+            }
+
+            Cursor cursor = new Cursor(canal, fimDados);
+            if (cursor.lerInt() != MAGICO || cursor.lerInt() != VERSAO) {
+                return null;
+            }
+
+            String dtGeracao = cursor.lerTexto();
+            int linhas = cursor.lerInt();
+
+            ArmazemColunar armazem = new ArmazemColunar(linhas);
+            for (int[] coluna : armazem.colunasNumericas()) {
+                cursor.lerInts(coluna, linhas);
+            }
+
+            for (ArmazemColunar.ColunaTexto coluna : armazem.colunasTexto()) {
+                int qtdValores = cursor.lerInt();
+                for (int c = 0; c < qtdValores; c++) {
+                    coluna.dicionario.codificar(cursor.lerTexto());
+                }
+                cursor.lerInts(coluna.codigos, linhas);
+            }
+            armazem.definirTamanho(linhas);
+
+            int qtdCidades = cursor.lerInt();
+            int[] cidades = new int[qtdCidades];
+            int[] contagens = new int[qtdCidades];
+            cursor.lerInts(cidades, qtdCidades);
+            cursor.lerInts(contagens, qtdCidades);
+
+            int[][] linhasPorCidade = new int[qtdCidades][];
+            for (int c = 0; c < qtdCidades; c++) {
+                linhasPorCidade[c] = new int[contagens[c]];
+                cursor.lerInts(linhasPorCidade[c], contagens[c]);
+            }
+
+            return new Conteudo(dtGeracao, armazem, cidades, linhasPorCidade);
+        }
+    }
+
+    /**
+     * Lê a DT_GERACAO da primeira linha de dados de um CSV do TSE.
+     *
+     * @return DT_GERACAO, ou null se não for possível ler
+     */
+    public static String lerDtGeracaoCsv(String arquivoCsv) {
+        try (InputStream csv = new FileInputStream(arquivoCsv)) {
+            return lerDtGeracao(csv);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lê a DT_GERACAO da primeira linha de dados do CSV dentro de um ZIP do
+     * TSE (só o começo da entrada é descompactado).
+     *
+     * @return DT_GERACAO, ou null se não for possível ler
+     */
+    public static String lerDtGeracaoZip(String arquivoZip) {
+        try (InputStream csv = Arquivo.abrirCsvDoZip(new BufferedInputStream(new FileInputStream(arquivoZip)))) {
+            return lerDtGeracao(csv);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String lerDtGeracao(InputStream csv) throws IOException {
+        BufferedReader br = new BufferedReader(new InputStreamReader(csv, "ISO-8859-1"));
+        br.readLine(); // cabeçalho
+        String linha = br.readLine();
+        if (linha == null) {
+            return null;
+        }
+        int fim = linha.indexOf(';');
+        return (fim < 0 ? linha : linha.substring(0, fim)).replace("\"", "").trim();
+    }
+
+    private static long calcularCrc(FileChannel canal, long fim) throws IOException {
+        CRC32 crc = new CRC32();
+        for (long pos = 0; pos < fim; pos += TAMANHO_JANELA) {
+            long tamanho = Math.min(TAMANHO_JANELA, fim - pos);
+            crc.update(canal.map(FileChannel.MapMode.READ_ONLY, pos, tamanho));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Leitura sequencial sobre janelas mapeadas do arquivo.
+     */
+    private static class Cursor {
+        private final FileChannel canal;
+        private final long fim;
+        private long inicioJanela;
+        private MappedByteBuffer janela;
+
+        Cursor(FileChannel canal, long fim) throws IOException {
+            this.canal = canal;
+            this.fim = fim;
+            mapear(0);
+        }
+
+        int lerInt() throws IOException {
+            garantir(4);
+            return janela.getInt();
+        }
+
+        String lerTexto() throws IOException {
+            int tamanho = lerInt();
+            garantir(tamanho);
+            byte[] bytes = new byte[tamanho];
+            janela.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void lerInts(int[] destino, int quantidade) throws IOException {
+            int lidos = 0;
+            while (lidos < quantidade) {
+                garantir(4);
+                int n = Math.min(quantidade - lidos, janela.remaining() / 4);
+                janela.asIntBuffer().get(destino, lidos, n);
+                janela.position(janela.position() + n * 4);
+                lidos += n;
+            }
+        }
+
+        // remapeia a partir da posição atual se faltarem bytes na janela
+        private void garantir(int bytes) throws IOException {
+            if (janela.remaining() >= bytes) {
+                return;
+            }
+
+            long posicao = inicioJanela + janela.position();
+            if (posicao + bytes > fim) {
+                throw new EOFException("Snapshot truncado");
+            }
+            mapear(posicao);
+        }
+
+        private void mapear(long posicao) throws IOException {
+            inicioJanela = posicao;
+            janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.min(TAMANHO_JANELA, fim - posicao));
+        }
+    }
+}
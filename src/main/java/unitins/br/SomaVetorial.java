@@ -0,0 +1,131 @@
+package unitins.br;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Laços de soma das colunas com a Vector API (jdk.incubator.vector).
+ *
+ * Cada passo lê várias linhas de uma vez (8 ints com AVX2, 16 com AVX-512).
+ * Os ints são convertidos para long antes de acumular, então a soma é
+ * exata como a dos laços escalares.
+ *
+ * Precisa de --add-modules jdk.incubator.vector; sem o módulo esta classe
+ * não carrega e o MotorVarredura usa os laços escalares.
+ */
+final class SomaVetorial {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT;
+    private static final ByteOrder ORDEM = ByteOrder.nativeOrder();
+
+    private SomaVetorial() {
+    }
+
+    /**
+     * Soma coluna[inicio..fim).
+     */
+    static long somar(int[] coluna, int inicio, int fim) {
+        LongVector acumulador = LongVector.zero(LONGS);
+        int limite = inicio + INTS.loopBound(fim - inicio);
+        int i = inicio;
+
+        for (; i < limite; i += INTS.length()) {
+            IntVector valores = IntVector.fromArray(INTS, coluna, i);
+            acumulador = acumular(acumulador, valores);
+        }
+
+        long total = acumulador.reduceLanes(VectorOperators.ADD);
+        for (; i < fim; i++) {
+            total += coluna[i];
+        }
+        return total;
+    }
+
+    /**
+     * Soma medida[i] para as linhas de [inicio..fim) com filtro[i] == alvo.
+     */
+    static long somarOndeIgual(int[] filtro, int alvo, int[] medida, int inicio, int fim) {
+        LongVector acumulador = LongVector.zero(LONGS);
+        IntVector zero = IntVector.zero(INTS);
+        int limite = inicio + INTS.loopBound(fim - inicio);
+        int i = inicio;
+
+        for (; i < limite; i += INTS.length()) {
+            VectorMask<Integer> aceitos = IntVector.fromArray(INTS, filtro, i).eq(alvo);
+            IntVector valores = zero.blend(IntVector.fromArray(INTS, medida, i), aceitos);
+            acumulador = acumular(acumulador, valores);
+        }
+
+        long total = acumulador.reduceLanes(VectorOperators.ADD);
+        for (; i < fim; i++) {
+            if (filtro[i] == alvo) {
+                total += medida[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Soma os ints [inicio..fim) de uma coluna fora do heap.
+     */
+    static long somar(MemorySegment coluna, int inicio, int fim) {
+        LongVector acumulador = LongVector.zero(LONGS);
+        int limite = inicio + INTS.loopBound(fim - inicio);
+        int i = inicio;
+
+        for (; i < limite; i += INTS.length()) {
+            IntVector valores = IntVector.fromMemorySegment(INTS, coluna, 4L * i, ORDEM);
+            acumulador = acumular(acumulador, valores);
+        }
+
+        long total = acumulador.reduceLanes(VectorOperators.ADD);
+        for (; i < fim; i++) {
+            total += coluna.getAtIndex(INT, i);
+        }
+        return total;
+    }
+
+    /**
+     * somarOndeIgual com as colunas fora do heap.
+     */
+    static long somarOndeIgual(MemorySegment filtro, int alvo, MemorySegment medida, int inicio, int fim) {
+        LongVector acumulador = LongVector.zero(LONGS);
+        IntVector zero = IntVector.zero(INTS);
+        int limite = inicio + INTS.loopBound(fim - inicio);
+        int i = inicio;
+
+        for (; i < limite; i += INTS.length()) {
+            VectorMask<Integer> aceitos = IntVector.fromMemorySegment(INTS, filtro, 4L * i, ORDEM).eq(alvo);
+            IntVector valores = zero.blend(IntVector.fromMemorySegment(INTS, medida, 4L * i, ORDEM), aceitos);
+            acumulador = acumular(acumulador, valores);
+        }
+
+        long total = acumulador.reduceLanes(VectorOperators.ADD);
+        for (; i < fim; i++) {
+            if (filtro.getAtIndex(INT, i) == alvo) {
+                total += medida.getAtIndex(INT, i);
+            }
+        }
+        return total;
+    }
+
+    // soma os ints do vetor no acumulador de longs (em partes, se o vetor
+    // de ints tiver mais posições que o de longs)
+    private static LongVector acumular(LongVector acumulador, IntVector valores) {
+        int partes = INTS.length() / LONGS.length();
+        for (int p = 0; p < partes; p++) {
+            acumulador = acumulador.add((LongVector) valores.convertShape(VectorOperators.I2L, LONGS, p));
+        }
+        return acumulador;
+    }
+}
@@ -0,0 +1,109 @@
+package unitins.br;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Conferência "sombra" das consultas indexadas: refaz a consulta por
+ * varredura linear numa thread de fundo e compara com o resultado da
+ * árvore/índice ou do cubo, sem atrasar a resposta ao usuário.
+ *
+ * A taxa de amostragem diz que fração das consultas é conferida (0 =
+ * desligado, 1 = todas). As conferências esperam numa fila curta; se ela
+ * estiver cheia a conferência é descartada (e contada). Os resultados
+ * saem nas métricas: verificacao.executadas, verificacao.divergencias e
+ * verificacao.descartadas, mais o histograma verificacao.linear.
+ */
+class VerificadorConsultas {
+
+    static final String EXECUTADAS = "verificacao.executadas";
+    static final String DIVERGENCIAS = "verificacao.divergencias";
+    static final String DESCARTADAS = "verificacao.descartadas";
+    static final String TEMPO_LINEAR = "verificacao.linear";
+
+    // conferências aguardando a thread (além disso, descarta)
+    private static final int TAMANHO_FILA = 64;
+
+    private final double taxaAmostragem;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param taxaAmostragem Fração das consultas conferidas, entre 0 e 1
+     */
+    VerificadorConsultas(double taxaAmostragem) {
+        this.taxaAmostragem = Math.max(0.0, Math.min(1.0, taxaAmostragem));
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(TAMANHO_FILA), r -> {
+                    Thread t = new Thread(r, "verificador-consultas");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Verificador com a taxa dada como texto (ex: -Dverificacao.taxa=0.05),
+     * ou null se ela não foi informada, é inválida ou é 0.
+     */
+    static VerificadorConsultas daTaxa(String taxa) {
+        if (taxa == null || taxa.isBlank()) {
+            return null;
+        }
+        try {
+            double valor = Double.parseDouble(taxa.trim());
+            return valor > 0 ? new VerificadorConsultas(valor) : null;
+        } catch (NumberFormatException e) {
+            Logger.erro("Taxa de verificação inválida: " + taxa);
+            return null;
+        }
+    }
+
+    /**
+     * Sorteia se a consulta será conferida e, se sim, agenda a varredura
+     * linear. Retorna na hora; a varredura deve capturar o armazém atual
+     * (a carga de outro estado cria um armazém novo, então basta guardar a
+     * referência).
+     *
+     * @param varredura Soma linear da mesma consulta
+     * @param resultadoIndice Total devolvido pela busca indexada
+     */
+    void conferir(LongSupplier varredura, long resultadoIndice, String descricao) {
+        if (taxaAmostragem < 1.0 && ThreadLocalRandom.current().nextDouble() >= taxaAmostragem) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                long inicio = Metricas.iniciar();
+                long resultadoLinear;
+                try {
+                    resultadoLinear = varredura.getAsLong();
+                } catch (IllegalStateException e) {
+                    // armazém fora do heap fechado (estado saiu do catálogo)
+                    Metricas.contar(DESCARTADAS, 1);
+                    return;
+                }
+                Metricas.registrar(TEMPO_LINEAR, inicio);
+                Metricas.contar(EXECUTADAS, 1);
+
+                if (resultadoLinear != resultadoIndice) {
+                    Metricas.contar(DIVERGENCIAS, 1);
+                    Logger.erro("Divergência de resultados (" + descricao + "): índice="
+                            + resultadoIndice + " linear=" + resultadoLinear);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Metricas.contar(DESCARTADAS, 1);
+        }
+    }
+
+    /**
+     * Para a thread; conferências ainda na fila são abandonadas.
+     */
+    void encerrar() {
+        executor.shutdownNow();
+    }
+}
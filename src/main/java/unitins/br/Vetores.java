@@ -0,0 +1,28 @@
+package unitins.br;
+
+import java.util.Arrays;
+
+/**
+ * Operações sobre vetores de int usadas na montagem dos índices.
+ */
+final class Vetores {
+
+    private Vetores() {
+    }
+
+    /**
+     * Valores distintos de valores[inicio .. fim), em ordem crescente
+     * (ordena uma cópia do trecho; o vetor de entrada não muda).
+     */
+    static int[] distintos(int[] valores, int inicio, int fim) {
+        int[] ordenado = Arrays.copyOfRange(valores, inicio, fim);
+        Arrays.sort(ordenado);
+        int qtd = 0;
+        for (int i = 0; i < ordenado.length; i++) {
+            if (i == 0 || ordenado[i] != ordenado[i - 1]) {
+                ordenado[qtd++] = ordenado[i];
+            }
+        }
+        return Arrays.copyOf(ordenado, qtd);
+    }
+}